@@ -0,0 +1,15 @@
+package org.spongepowered.asm.mixin;
+
+import java.lang.annotation.*;
+
+// Minimal stand-in for the Mixin annotation of the same name, only declares the members read by the extractor
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Mixin
+{
+    Class<?>[] value() default { };
+
+    String[] targets() default { };
+
+    int priority() default 1000;
+}
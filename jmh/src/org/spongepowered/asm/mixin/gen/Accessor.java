@@ -0,0 +1,11 @@
+package org.spongepowered.asm.mixin.gen;
+
+import java.lang.annotation.*;
+
+// Minimal stand-in for the Mixin annotation of the same name, only declares the members read by the extractor
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Accessor
+{
+    String value() default "";
+}
@@ -0,0 +1,25 @@
+package org.spongepowered.asm.mixin.injection;
+
+import java.lang.annotation.*;
+
+// Minimal stand-in for the Mixin annotation of the same name, only declares the members read by the extractor
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ })
+public @interface At
+{
+    String value();
+
+    String target() default "";
+
+    Shift shift() default Shift.NONE;
+
+    int by() default 0;
+
+    String[] args() default { };
+
+    int ordinal() default -1;
+
+    int opcode() default -1;
+
+    enum Shift { NONE, BEFORE, AFTER, BY }
+}
@@ -0,0 +1,25 @@
+package org.spongepowered.asm.mixin.injection;
+
+import java.lang.annotation.*;
+
+// Minimal stand-in for the Mixin annotation of the same name, only declares the members read by the extractor
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ })
+public @interface Constant
+{
+    boolean nullValue() default false;
+
+    int intValue() default 0;
+
+    float floatValue() default 0F;
+
+    long longValue() default 0L;
+
+    double doubleValue() default 0D;
+
+    String stringValue() default "";
+
+    Class<?> classValue() default Object.class;
+
+    int ordinal() default -1;
+}
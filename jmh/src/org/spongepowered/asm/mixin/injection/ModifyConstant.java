@@ -0,0 +1,15 @@
+package org.spongepowered.asm.mixin.injection;
+
+import java.lang.annotation.*;
+
+// Minimal stand-in for the Mixin annotation of the same name, only declares the members read by the extractor
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ModifyConstant
+{
+    String[] method() default { };
+
+    Constant[] constant() default { };
+
+    int ordinal() default -1;
+}
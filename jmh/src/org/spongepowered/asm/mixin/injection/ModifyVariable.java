@@ -0,0 +1,17 @@
+package org.spongepowered.asm.mixin.injection;
+
+import java.lang.annotation.*;
+
+// Minimal stand-in for the Mixin annotation of the same name, only declares the members read by the extractor
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ModifyVariable
+{
+    String[] method() default { };
+
+    At at();
+
+    int ordinal() default -1;
+
+    int index() default -1;
+}
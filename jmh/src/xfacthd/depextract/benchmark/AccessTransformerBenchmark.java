@@ -0,0 +1,36 @@
+package xfacthd.depextract.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xfacthd.depextract.data.accesstransformer.AccessTransformer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTransformerBenchmark
+{
+    private List<String> lines;
+    private List<String> flaggedATs;
+
+    @Setup
+    public void setup()
+    {
+        lines = Corpus.lines("accesstransformer.cfg");
+        flaggedATs = List.of("rightClickDelay", "renderBuffers", "setSharedFlag", "$Properties", "storageSource");
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole)
+    {
+        for (String line : lines)
+        {
+            blackhole.consume(AccessTransformer.parse(line, flaggedATs));
+        }
+    }
+}
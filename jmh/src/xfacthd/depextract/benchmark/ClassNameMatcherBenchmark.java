@@ -0,0 +1,67 @@
+package xfacthd.depextract.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xfacthd.depextract.util.ClassNameMatcher;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassNameMatcherBenchmark
+{
+    private static final Pattern CLASS_PATTERN = Pattern.compile("L([\\w/$]+);");
+
+    @Param({ "1", "20", "200", "2000" })
+    public int targets;
+
+    private List<String> descriptors;
+    private ClassNameMatcher matcher;
+
+    @Setup
+    public void setup()
+    {
+        // Every class referenced by the selectors in the corpus as a descriptor, like the ClassFinder sees them
+        descriptors = new ArrayList<>();
+        for (String selector : Corpus.lines("descriptors.txt"))
+        {
+            Matcher classMatcher = CLASS_PATTERN.matcher(selector);
+            while (classMatcher.find())
+            {
+                descriptors.add(classMatcher.group());
+            }
+        }
+
+        List<String> patterns = new ArrayList<>();
+        patterns.add("net/minecraft/world/level/Level");
+        for (int i = 1; i < targets; i++)
+        {
+            patterns.add(switch (i % 10)
+            {
+                case 0 -> "net/minecraft/world/level/block/pkg" + i + "/*";
+                case 1 -> "net/minecraft/client/renderer/pkg" + i + "/**";
+                default -> "net/minecraft/world/level/block/Block" + i;
+            });
+        }
+        matcher = ClassNameMatcher.of(patterns);
+    }
+
+    @Benchmark
+    public int matchDescriptors()
+    {
+        int hits = 0;
+        for (String desc : descriptors)
+        {
+            if (matcher.matches(desc, 1, desc.length() - 1))
+            {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
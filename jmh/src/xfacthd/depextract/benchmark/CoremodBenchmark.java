@@ -0,0 +1,36 @@
+package xfacthd.depextract.benchmark;
+
+import com.google.gson.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xfacthd.depextract.data.coremod.CoremodConfig;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoremodBenchmark
+{
+    private final List<JsonObject> configs = new ArrayList<>();
+
+    @Setup
+    public void setup()
+    {
+        JsonArray array = JsonParser.parseString(Corpus.readString("coremods.json")).getAsJsonArray();
+        array.forEach(elem -> configs.add(elem.getAsJsonObject()));
+    }
+
+    @Benchmark
+    public void fromJson(Blackhole blackhole)
+    {
+        for (JsonObject config : configs)
+        {
+            blackhole.consume(CoremodConfig.fromJson(config));
+        }
+    }
+}
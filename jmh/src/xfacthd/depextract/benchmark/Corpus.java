@@ -0,0 +1,56 @@
+package xfacthd.depextract.benchmark;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Loads the benchmark inputs from the sample corpus committed alongside the benchmarks
+final class Corpus
+{
+    private static final String CORPUS_PATH = "/corpus/";
+
+    // Returns the non-empty lines of the given corpus file, skipping comment lines
+    static List<String> lines(String fileName)
+    {
+        return readString(fileName)
+                .lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+    }
+
+    static String readString(String fileName)
+    {
+        return new String(readResource(CORPUS_PATH + fileName), StandardCharsets.UTF_8);
+    }
+
+    // Reads the class file of the given sample class the same way the extractors read classes from mod JARs
+    static ClassNode readClass(Class<?> clazz)
+    {
+        byte[] classFile = readResource("/" + clazz.getName().replace('.', '/') + ".class");
+        ClassNode node = new ClassNode();
+        new ClassReader(classFile).accept(node, 0);
+        return node;
+    }
+
+    private static byte[] readResource(String path)
+    {
+        try (InputStream stream = Corpus.class.getResourceAsStream(path))
+        {
+            if (stream == null)
+            {
+                throw new IllegalStateException("Missing benchmark resource '" + path + "'");
+            }
+            return stream.readAllBytes();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Failed to read benchmark resource '" + path + "'", e);
+        }
+    }
+
+    private Corpus() { }
+}
@@ -0,0 +1,42 @@
+package xfacthd.depextract.benchmark;
+
+import org.apache.maven.artifact.versioning.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xfacthd.depextract.data.dependency.Dependency;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencyBenchmark
+{
+    private final List<Dependency> dependencies = new ArrayList<>();
+    private final List<ArtifactVersion> versions = new ArrayList<>();
+
+    @Setup
+    public void setup() throws InvalidVersionSpecificationException
+    {
+        for (String line : Corpus.lines("versions.txt"))
+        {
+            String[] parts = line.split(" ");
+            VersionRange range = VersionRange.createFromVersionSpec(parts[0]);
+            dependencies.add(new Dependency("dependency", range, Dependency.Type.REQUIRED));
+            versions.add(new DefaultArtifactVersion(parts[1]));
+        }
+    }
+
+    @Benchmark
+    public void isVersionRangeSatisfied(Blackhole blackhole)
+    {
+        for (int i = 0; i < dependencies.size(); i++)
+        {
+            blackhole.consume(dependencies.get(i).isVersionRangeSatisfied(versions.get(i)));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package xfacthd.depextract.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xfacthd.depextract.html.HtmlWriter;
+import xfacthd.depextract.util.Descriptor;
+import xfacthd.depextract.util.Utils;
+
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DescriptorBenchmark
+{
+    private List<String> selectors;
+    private List<Descriptor> descriptors;
+
+    @Setup
+    public void setup()
+    {
+        selectors = Corpus.lines("descriptors.txt");
+        descriptors = selectors.stream().map(selector -> Utils.splitMethodDescriptor(selector, null)).toList();
+    }
+
+    @Benchmark
+    public void splitMethodDescriptor(Blackhole blackhole)
+    {
+        for (String selector : selectors)
+        {
+            blackhole.consume(Utils.splitMethodDescriptor(selector, null));
+        }
+    }
+
+    @Benchmark
+    public HtmlWriter printDescriptor()
+    {
+        HtmlWriter writer = new HtmlWriter(new PrintWriter(Writer.nullWriter()), false);
+        for (Descriptor desc : descriptors)
+        {
+            Utils.printDescriptor(writer, "public", desc.clazz(), desc.method(), desc.descriptor());
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,82 @@
+package xfacthd.depextract.benchmark;
+
+import org.objectweb.asm.tree.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xfacthd.depextract.benchmark.sample.*;
+import xfacthd.depextract.data.mixin.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixinBenchmark
+{
+    // Same mapping of annotation descriptors to injection types as in MixinExtractor
+    private static final Map<String, MixinInjectionType> INJECTION_TYPES = Map.of(
+            "Lorg/spongepowered/asm/mixin/gen/Accessor;", MixinInjectionType.ACCESSOR,
+            "Lorg/spongepowered/asm/mixin/gen/Invoker;", MixinInjectionType.INVOKER,
+            "Lorg/spongepowered/asm/mixin/injection/Inject;", MixinInjectionType.INJECT,
+            "Lorg/spongepowered/asm/mixin/injection/Redirect;", MixinInjectionType.REDIRECT,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyArg;", MixinInjectionType.MODIFY_ARG,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyArgs;", MixinInjectionType.MODIFY_ARGS,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyConstant;", MixinInjectionType.MODIFY_CONSTANT,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyVariable;", MixinInjectionType.MODIFY_VARIABLE,
+            "Lorg/spongepowered/asm/mixin/Overwrite;", MixinInjectionType.OVERWRITE
+    );
+
+    private final List<Injection> injections = new ArrayList<>();
+
+    @Setup
+    public void setup()
+    {
+        List<ClassNode> classes = List.of(
+                Corpus.readClass(LivingEntityMixin.class),
+                Corpus.readClass(LevelRendererMixin.class),
+                Corpus.readClass(MinecraftAccessor.class)
+        );
+        for (ClassNode clazz : classes)
+        {
+            for (MethodNode mth : clazz.methods)
+            {
+                if (mth.visibleAnnotations == null)
+                {
+                    continue;
+                }
+                for (AnnotationNode anno : mth.visibleAnnotations)
+                {
+                    MixinInjectionType type = INJECTION_TYPES.get(anno.desc);
+                    if (type != null)
+                    {
+                        injections.add(new Injection(type, mth, anno));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseInjectionType(Blackhole blackhole)
+    {
+        for (Injection injection : injections)
+        {
+            blackhole.consume(injection.type.parseAnnotationData(injection.method.name, injection.method.desc, injection.annotation));
+        }
+    }
+
+    @Benchmark
+    public void parseAtType(Blackhole blackhole)
+    {
+        for (Injection injection : injections)
+        {
+            blackhole.consume(MixinAtType.parse(injection.annotation));
+        }
+    }
+
+    private record Injection(MixinInjectionType type, MethodNode method, AnnotationNode annotation) { }
+}
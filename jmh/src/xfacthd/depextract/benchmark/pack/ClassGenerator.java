@@ -0,0 +1,237 @@
+package xfacthd.depextract.benchmark.pack;
+
+import org.objectweb.asm.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Generates the class files of the mod JARs in a generated mod pack. The classes are never loaded, they only have to
+// be well-formed enough to be parsed by the extractors
+final class ClassGenerator
+{
+    static final List<String> TARGET_CLASSES = List.of(
+            "net/minecraft/client/Minecraft",
+            "net/minecraft/client/renderer/LevelRenderer",
+            "net/minecraft/client/renderer/GameRenderer",
+            "net/minecraft/client/renderer/entity/ItemRenderer",
+            "net/minecraft/client/renderer/block/ModelBlockRenderer",
+            "net/minecraft/client/gui/Gui",
+            "net/minecraft/client/gui/screens/TitleScreen",
+            "net/minecraft/client/gui/screens/inventory/AbstractContainerScreen",
+            "net/minecraft/server/MinecraftServer",
+            "net/minecraft/server/level/ServerLevel",
+            "net/minecraft/server/level/ServerPlayer",
+            "net/minecraft/server/level/ChunkMap",
+            "net/minecraft/world/entity/Entity",
+            "net/minecraft/world/entity/LivingEntity",
+            "net/minecraft/world/entity/Mob",
+            "net/minecraft/world/entity/player/Player",
+            "net/minecraft/world/entity/item/ItemEntity",
+            "net/minecraft/world/item/ItemStack",
+            "net/minecraft/world/item/Item",
+            "net/minecraft/world/item/crafting/RecipeManager",
+            "net/minecraft/world/level/Level",
+            "net/minecraft/world/level/block/Block",
+            "net/minecraft/world/level/block/state/BlockBehaviour",
+            "net/minecraft/world/level/block/entity/BlockEntity",
+            "net/minecraft/world/level/chunk/LevelChunk",
+            "net/minecraft/world/level/levelgen/NoiseBasedChunkGenerator",
+            "net/minecraft/world/inventory/AbstractContainerMenu",
+            "net/minecraft/network/Connection"
+    );
+    static final List<String> TARGET_METHODS = List.of(
+            "tick()V",
+            "render(Lcom/mojang/blaze3d/vertex/PoseStack;F)V",
+            "hurt(Lnet/minecraft/world/damagesource/DamageSource;F)Z",
+            "use(Lnet/minecraft/world/level/Level;Lnet/minecraft/world/entity/player/Player;Lnet/minecraft/world/InteractionHand;)Lnet/minecraft/world/InteractionResultHolder;",
+            "getBlockState(Lnet/minecraft/core/BlockPos;)Lnet/minecraft/world/level/block/state/BlockState;",
+            "setBlock(Lnet/minecraft/core/BlockPos;Lnet/minecraft/world/level/block/state/BlockState;II)Z",
+            "addFreshEntity(Lnet/minecraft/world/entity/Entity;)Z",
+            "saveWithoutId(Lnet/minecraft/nbt/CompoundTag;)Lnet/minecraft/nbt/CompoundTag;",
+            "load(Lnet/minecraft/nbt/CompoundTag;)V",
+            "getMaxHealth()F",
+            "travel(Lnet/minecraft/world/phys/Vec3;)V",
+            "renderLevel",
+            "init()V",
+            "<init>"
+    );
+    static final List<String> INVOKE_TARGETS = List.of(
+            "Lnet/minecraft/world/level/Level;getBlockState(Lnet/minecraft/core/BlockPos;)Lnet/minecraft/world/level/block/state/BlockState;",
+            "Lnet/minecraft/world/level/Level;setBlock(Lnet/minecraft/core/BlockPos;Lnet/minecraft/world/level/block/state/BlockState;II)Z",
+            "Lnet/minecraft/world/entity/Entity;setDeltaMovement(DDD)V",
+            "Lnet/minecraft/world/entity/LivingEntity;actuallyHurt(Lnet/minecraft/world/damagesource/DamageSource;F)V",
+            "Lnet/minecraft/world/item/ItemStack;getCount()I",
+            "Lnet/minecraft/world/item/ItemStack;shrink(I)V",
+            "Lnet/minecraft/util/profiling/ProfilerFiller;push(Ljava/lang/String;)V",
+            "Lcom/mojang/blaze3d/systems/RenderSystem;setShaderColor(FFFF)V",
+            "Lnet/minecraft/server/level/ServerLevel;addFreshEntity(Lnet/minecraft/world/entity/Entity;)Z"
+    );
+    private static final String MIXIN_DESC = "Lorg/spongepowered/asm/mixin/Mixin;";
+    private static final String INJECTION_PACKAGE = "Lorg/spongepowered/asm/mixin/injection/";
+    private static final String AT_DESC = INJECTION_PACKAGE + "At;";
+    private static final String CALLBACK_INFO_DESC = "Lorg/spongepowered/asm/mixin/injection/callback/CallbackInfo;";
+
+    // Generates a class referencing random target classes in its fields, method signatures and method bodies
+    static byte[] plainClass(String name, Random random)
+    {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+
+        String fieldType = pick(TARGET_CLASSES, random);
+        writer.visitField(Opcodes.ACC_PRIVATE, "target", "L" + fieldType + ";", null, null).visitEnd();
+
+        MethodVisitor ctor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        ctor.visitCode();
+        ctor.visitVarInsn(Opcodes.ALOAD, 0);
+        ctor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        ctor.visitInsn(Opcodes.RETURN);
+        ctor.visitMaxs(0, 0);
+        ctor.visitEnd();
+
+        int methods = 1 + random.nextInt(4);
+        for (int i = 0; i < methods; i++)
+        {
+            String paramType = pick(TARGET_CLASSES, random);
+            MethodVisitor mth = writer.visitMethod(Opcodes.ACC_PUBLIC, "run" + i, "(L" + paramType + ";)V", null, null);
+            mth.visitCode();
+            int calls = 1 + random.nextInt(3);
+            for (int j = 0; j < calls; j++)
+            {
+                String owner = pick(TARGET_CLASSES, random);
+                mth.visitInsn(Opcodes.ACONST_NULL);
+                mth.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, "tick", "()V", false);
+            }
+            mth.visitVarInsn(Opcodes.ALOAD, 0);
+            mth.visitFieldInsn(Opcodes.GETFIELD, name, "target", "L" + fieldType + ";");
+            mth.visitInsn(Opcodes.POP);
+            mth.visitInsn(Opcodes.RETURN);
+            mth.visitMaxs(0, 0);
+            mth.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    // Generates a Mixin class targeting the given class with the given amount of injectors of varying types
+    static byte[] mixinClass(String name, String target, int injections, Random random)
+    {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+
+        AnnotationVisitor mixin = writer.visitAnnotation(MIXIN_DESC, false);
+        if (random.nextBoolean())
+        {
+            AnnotationVisitor value = mixin.visitArray("value");
+            value.visit(null, Type.getObjectType(target));
+            value.visitEnd();
+        }
+        else
+        {
+            AnnotationVisitor targets = mixin.visitArray("targets");
+            targets.visit(null, target.replace('/', '.'));
+            targets.visitEnd();
+        }
+        mixin.visitEnd();
+
+        for (int i = 0; i < injections; i++)
+        {
+            String selector = pick(TARGET_METHODS, random);
+            switch (random.nextInt(6))
+            {
+                case 0 -> injector(writer, "onHead" + i, "(" + CALLBACK_INFO_DESC + ")V", "Inject", selector, inject ->
+                {
+                    atArray(inject, "HEAD", null);
+                    inject.visit("cancellable", random.nextBoolean());
+                });
+                case 1 -> injector(writer, "onInvoke" + i, "(" + CALLBACK_INFO_DESC + ")V", "Inject", selector, inject ->
+                        atArray(inject, "INVOKE", pick(INVOKE_TARGETS, random))
+                );
+                case 2 -> injector(writer, "redirect" + i, "(Ljava/lang/Object;)V", "Redirect", selector, redirect ->
+                        at(redirect, "INVOKE", pick(INVOKE_TARGETS, random))
+                );
+                case 3 -> injector(writer, "modifyArg" + i, "(I)I", "ModifyArg", selector, modifyArg ->
+                {
+                    at(modifyArg, "INVOKE", pick(INVOKE_TARGETS, random));
+                    modifyArg.visit("index", random.nextInt(3));
+                });
+                case 4 -> injector(writer, "modifyVariable" + i, "(F)F", "ModifyVariable", selector, modifyVariable ->
+                {
+                    at(modifyVariable, "STORE", null);
+                    modifyVariable.visit("ordinal", random.nextInt(2));
+                });
+                default -> injector(writer, "modifyConstant" + i, "(I)I", "ModifyConstant", selector, modifyConstant ->
+                {
+                    AnnotationVisitor constants = modifyConstant.visitArray("constant");
+                    AnnotationVisitor constant = constants.visitAnnotation(null, INJECTION_PACKAGE + "Constant;");
+                    constant.visit("intValue", random.nextInt(64));
+                    constant.visitEnd();
+                    constants.visitEnd();
+                });
+            }
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void injector(
+            ClassWriter writer, String name, String desc, String type, String selector, Consumer<AnnotationVisitor> values
+    )
+    {
+        MethodVisitor mth = writer.visitMethod(Opcodes.ACC_PRIVATE, name, desc, null, null);
+
+        AnnotationVisitor anno = mth.visitAnnotation(INJECTION_PACKAGE + type + ";", true);
+        AnnotationVisitor methods = anno.visitArray("method");
+        methods.visit(null, selector);
+        methods.visitEnd();
+        values.accept(anno);
+        anno.visitEnd();
+
+        mth.visitCode();
+        Type returnType = Type.getReturnType(desc);
+        if (returnType.getSort() == Type.VOID)
+        {
+            mth.visitInsn(Opcodes.RETURN);
+        }
+        else
+        {
+            mth.visitVarInsn(returnType.getOpcode(Opcodes.ILOAD), 1);
+            mth.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        }
+        mth.visitMaxs(0, 0);
+        mth.visitEnd();
+    }
+
+    // Adds a single @At as the "at" value of the given injector annotation
+    private static void at(AnnotationVisitor anno, String value, String target)
+    {
+        writeAt(anno.visitAnnotation("at", AT_DESC), value, target);
+    }
+
+    // Adds a single @At wrapped in an array as the "at" value of the given injector annotation
+    private static void atArray(AnnotationVisitor anno, String value, String target)
+    {
+        AnnotationVisitor array = anno.visitArray("at");
+        writeAt(array.visitAnnotation(null, AT_DESC), value, target);
+        array.visitEnd();
+    }
+
+    private static void writeAt(AnnotationVisitor at, String value, String target)
+    {
+        at.visit("value", value);
+        if (target != null)
+        {
+            at.visit("target", target);
+        }
+        at.visitEnd();
+    }
+
+    static <T> T pick(List<T> values, Random random)
+    {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private ClassGenerator() { }
+}
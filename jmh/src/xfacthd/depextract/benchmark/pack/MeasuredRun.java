@@ -0,0 +1,71 @@
+package xfacthd.depextract.benchmark.pack;
+
+import com.google.gson.JsonObject;
+import xfacthd.depextract.Main;
+
+import java.io.IOException;
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+// Entry point of the JVMs started by the ScalingBenchmark, runs the full pipeline of Main with the given arguments
+// and writes the wall time, GC time and peak memory usage of the run to the file given as the first argument
+public final class MeasuredRun
+{
+    public static void main(String[] args) throws IOException
+    {
+        Path measurementFile = Path.of(args[0]);
+        String[] mainArgs = Arrays.copyOfRange(args, 1, args.length);
+
+        long start = System.nanoTime();
+        Main.main(mainArgs);
+        long wallNanos = System.nanoTime() - start;
+
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            gcMillis += Math.max(bean.getCollectionTime(), 0);
+        }
+
+        // Sum of the peaks of the individual pools, which is an upper bound of the actual peak heap usage
+        long peakHeap = 0;
+        for (MemoryPoolMXBean bean : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (bean.getType() == MemoryType.HEAP)
+            {
+                peakHeap += bean.getPeakUsage().getUsed();
+            }
+        }
+
+        JsonObject obj = new JsonObject();
+        obj.addProperty("wall_ms", wallNanos / 1_000_000D);
+        obj.addProperty("gc_ms", gcMillis);
+        obj.addProperty("peak_heap_bytes", peakHeap);
+        obj.addProperty("peak_rss_bytes", readPeakRss());
+        Files.writeString(measurementFile, obj.toString(), StandardCharsets.UTF_8);
+    }
+
+    // Reads the peak resident set size from procfs, returns -1 on systems without procfs
+    private static long readPeakRss()
+    {
+        try
+        {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status")))
+            {
+                if (line.startsWith("VmHWM:"))
+                {
+                    String value = line.substring(6).trim();
+                    return Long.parseLong(value.substring(0, value.indexOf(' '))) * 1024L;
+                }
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return -1;
+        }
+        return -1;
+    }
+
+    private MeasuredRun() { }
+}
@@ -0,0 +1,434 @@
+package xfacthd.depextract.benchmark.pack;
+
+import com.google.gson.*;
+import joptsimple.*;
+import joptsimple.util.PathConverter;
+import xfacthd.depextract.log.Log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.*;
+
+// Generates a synthetic mod pack for benchmarking. The mod JARs are written to the mods directory of the given
+// instance directory and only depend on the pack config, generating a pack twice with the same config produces
+// byte-identical JARs
+public final class ModpackGenerator
+{
+    public static final Log LOG = new Log("generator");
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final String MODS_TOML_NAME = "META-INF/neoforge.mods.toml";
+    private static final String JIJ_META_NAME = "META-INF/jarjar/metadata.json";
+    private static final String AT_NAME = "META-INF/accesstransformer.cfg";
+    private static final String COREMODS_NAME = "META-INF/coremods.json";
+    private static final List<String> AT_MODIFIERS = List.of("public", "public", "public", "protected", "public-f");
+
+    private final PackConfig config;
+    // JiJ libraries are shared between the mods, so they are generated once per nesting depth
+    private final Map<String, byte[]> libraries = new HashMap<>();
+
+    private ModpackGenerator(PackConfig config)
+    {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        PackConfig defaults = PackConfig.DEFAULT;
+
+        OptionParser parser = new OptionParser();
+        OptionSpec<Path> outputOpt = parser.accepts("output", "The instance directory to write the mods directory to, defaults to a new temporary directory")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter());
+        OptionSpec<Integer> modsOpt = intOption(parser, "mods", "Amount of mod JARs", defaults.mods());
+        OptionSpec<Integer> dependenciesOpt = intOption(parser, "dependencies", "Amount of dependencies on other mods per mod", defaults.dependencies());
+        OptionSpec<Integer> jijDepthOpt = intOption(parser, "jij_depth", "Nesting depth of JiJed JARs", defaults.jijDepth());
+        OptionSpec<Integer> jijPerJarOpt = intOption(parser, "jij_per_jar", "Amount of JiJed JARs in each JAR above the maximum depth", defaults.jijPerJar());
+        OptionSpec<Integer> jijLibrariesOpt = intOption(parser, "jij_libraries", "Amount of distinct libraries the JiJed JARs are picked from", defaults.jijLibraries());
+        OptionSpec<Integer> mixinClassesOpt = intOption(parser, "mixin_classes", "Amount of Mixin classes per mod", defaults.mixinClasses());
+        OptionSpec<Integer> injectionsOpt = intOption(parser, "injections", "Amount of injectors per Mixin class", defaults.injectionsPerMixin());
+        OptionSpec<Integer> atLinesOpt = intOption(parser, "at_lines", "Amount of access transformer lines per mod", defaults.atLines());
+        OptionSpec<Integer> coremodsOpt = intOption(parser, "coremods", "Amount of JS coremods per mod", defaults.coremods());
+        OptionSpec<Integer> classesOpt = intOption(parser, "classes", "Amount of regular classes per mod", defaults.classes());
+        OptionSpec<Long> seedOpt = parser.accepts("seed", "Seed of the random generator")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(defaults.seed());
+        parser.accepts("help").forHelp();
+
+        OptionSet options = parser.parse(args);
+        if (options.has("help"))
+        {
+            parser.printHelpOn(System.out);
+            return;
+        }
+
+        PackConfig config = new PackConfig(
+                options.valueOf(modsOpt),
+                options.valueOf(dependenciesOpt),
+                options.valueOf(jijDepthOpt),
+                options.valueOf(jijPerJarOpt),
+                options.valueOf(jijLibrariesOpt),
+                options.valueOf(mixinClassesOpt),
+                options.valueOf(injectionsOpt),
+                options.valueOf(atLinesOpt),
+                options.valueOf(coremodsOpt),
+                options.valueOf(classesOpt),
+                options.valueOf(seedOpt)
+        );
+        Path directory = options.has(outputOpt) ? options.valueOf(outputOpt) : Files.createTempDirectory("depextract-pack");
+
+        generate(directory, config);
+        LOG.info("Run ModDepExtract with '--directory %s' to scan the generated pack", directory.toAbsolutePath());
+    }
+
+    // Writes the mod JARs of the given config to the mods directory of the given instance directory, existing JARs
+    // in the mods directory are removed
+    public static void generate(Path directory, PackConfig config) throws IOException
+    {
+        Path modsDir = directory.resolve("mods");
+        Files.createDirectories(modsDir);
+        try (Stream<Path> files = Files.list(modsDir))
+        {
+            for (Path file : files.toList())
+            {
+                if (file.getFileName().toString().endsWith(".jar"))
+                {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        LOG.info("Generating %d mod JARs in '%s'", config.mods(), modsDir);
+        long start = System.nanoTime();
+
+        ModpackGenerator generator = new ModpackGenerator(config);
+        long totalSize = 0;
+        for (int i = 0; i < config.mods(); i++)
+        {
+            String modId = modId(i);
+            String version = modVersion(i);
+            byte[] jar = generator.buildModJar(i, modId, version);
+            Files.write(modsDir.resolve(modId + "-" + version + ".jar"), jar);
+            totalSize += jar.length;
+        }
+
+        LOG.info(
+                "Generated %d mod JARs with a total size of %d KiB in %dms",
+                config.mods(),
+                totalSize / 1024,
+                (System.nanoTime() - start) / 1_000_000
+        );
+    }
+
+    private byte[] buildModJar(int index, String modId, String version) throws IOException
+    {
+        Random random = new Random(config.seed() * 1_000_003L + index);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+
+        String mixinConfig = config.mixinClasses() > 0 ? modId + ".mixins.json" : null;
+        entries.put(JarFile.MANIFEST_NAME, manifest(modId, version));
+        entries.put(MODS_TOML_NAME, modsToml(index, modId, version, mixinConfig, random));
+
+        String basePackage = "com/example/" + modId;
+        for (int i = 0; i < config.classes(); i++)
+        {
+            String name = basePackage + "/Class" + i;
+            entries.put(name + ".class", ClassGenerator.plainClass(name, random));
+        }
+
+        if (mixinConfig != null)
+        {
+            JsonObject mixinJson = new JsonObject();
+            mixinJson.addProperty("required", true);
+            mixinJson.addProperty("package", (basePackage + "/mixin").replace('/', '.'));
+            mixinJson.addProperty("compatibilityLevel", "JAVA_21");
+            JsonArray common = new JsonArray();
+            JsonArray client = new JsonArray();
+            for (int i = 0; i < config.mixinClasses(); i++)
+            {
+                String target = ClassGenerator.pick(ClassGenerator.TARGET_CLASSES, random);
+                String simpleName = target.substring(target.lastIndexOf('/') + 1) + "Mixin" + i;
+                String name = basePackage + "/mixin/" + simpleName;
+                entries.put(name + ".class", ClassGenerator.mixinClass(name, target, config.injectionsPerMixin(), random));
+                (target.startsWith("net/minecraft/client/") ? client : common).add(simpleName);
+            }
+            mixinJson.add("mixins", common);
+            mixinJson.add("client", client);
+            entries.put(mixinConfig, GSON.toJson(mixinJson).getBytes(StandardCharsets.UTF_8));
+        }
+
+        if (config.atLines() > 0)
+        {
+            entries.put(AT_NAME, accessTransformer(random));
+        }
+
+        if (config.coremods() > 0)
+        {
+            JsonObject coremods = new JsonObject();
+            for (int i = 0; i < config.coremods(); i++)
+            {
+                String path = "coremods/" + modId + "_transformer" + i + ".js";
+                coremods.addProperty(modId + "_transformer" + i, path);
+                entries.put(path, "function initializeCoreMod() { return {}; }\n".getBytes(StandardCharsets.UTF_8));
+            }
+            entries.put(COREMODS_NAME, GSON.toJson(coremods).getBytes(StandardCharsets.UTF_8));
+        }
+
+        addJiJedJars(entries, 0, random);
+        return writeJar(entries);
+    }
+
+    private byte[] buildLibraryJar(int index, int depth) throws IOException
+    {
+        String key = index + "@" + depth;
+        byte[] cached = libraries.get(key);
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        Random random = new Random(config.seed() * 1_000_003L - (index + 1) * 31L - depth);
+        String modId = libraryId(index);
+        String version = libraryVersion(index);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(JarFile.MANIFEST_NAME, manifest(modId, version));
+        entries.put(MODS_TOML_NAME, libraryToml(modId, version));
+        String basePackage = "com/example/lib/" + modId;
+        int classes = Math.max(1, config.classes() / 4);
+        for (int i = 0; i < classes; i++)
+        {
+            String name = basePackage + "/LibClass" + i;
+            entries.put(name + ".class", ClassGenerator.plainClass(name, random));
+        }
+        addJiJedJars(entries, depth, random);
+
+        byte[] jar = writeJar(entries);
+        libraries.put(key, jar);
+        return jar;
+    }
+
+    private void addJiJedJars(Map<String, byte[]> entries, int depth, Random random) throws IOException
+    {
+        int count = Math.min(config.jijPerJar(), config.jijLibraries());
+        if (depth >= config.jijDepth() || count == 0)
+        {
+            return;
+        }
+
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < config.jijLibraries(); i++)
+        {
+            indices.add(i);
+        }
+        Collections.shuffle(indices, random);
+
+        JsonArray jars = new JsonArray();
+        for (int index : indices.subList(0, count).stream().sorted().toList())
+        {
+            String libId = libraryId(index);
+            String version = libraryVersion(index);
+            String path = "META-INF/jarjar/" + libId + "-" + version + ".jar";
+            entries.put(path, buildLibraryJar(index, depth + 1));
+
+            JsonObject identifier = new JsonObject();
+            identifier.addProperty("group", "com.example.lib");
+            identifier.addProperty("artifact", libId);
+            JsonObject versionObj = new JsonObject();
+            versionObj.addProperty("range", "[" + version + ",)");
+            versionObj.addProperty("artifactVersion", version);
+            JsonObject jar = new JsonObject();
+            jar.add("identifier", identifier);
+            jar.add("version", versionObj);
+            jar.addProperty("path", path);
+            jar.addProperty("isObfuscated", false);
+            jars.add(jar);
+        }
+
+        JsonObject metadata = new JsonObject();
+        metadata.add("jars", jars);
+        entries.put(JIJ_META_NAME, GSON.toJson(metadata).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] modsToml(int index, String modId, String version, String mixinConfig, Random random)
+    {
+        StringBuilder toml = new StringBuilder();
+        toml.append("modLoader=\"javafml\"\n");
+        toml.append("loaderVersion=\"[4,)\"\n");
+        toml.append("license=\"MIT\"\n\n");
+        toml.append("[[mods]]\n");
+        toml.append("modId=\"").append(modId).append("\"\n");
+        toml.append("version=\"").append(version).append("\"\n");
+        toml.append("displayName=\"Generated Mod ").append(index).append("\"\n");
+        toml.append("description='''A generated mod'''\n\n");
+        if (mixinConfig != null)
+        {
+            toml.append("[[mixins]]\n");
+            toml.append("config=\"").append(mixinConfig).append("\"\n\n");
+        }
+
+        appendDependency(toml, modId, "neoforge", "required", "[21.1,)");
+        appendDependency(toml, modId, "minecraft", "required", "[1.21.1,1.22)");
+
+        // Most dependencies point to other mods of the pack and are satisfied, some are missing or out of range
+        Set<String> dependencies = new HashSet<>();
+        int fanOut = config.mods() > 1 ? config.dependencies() : 0;
+        for (int i = 0; i < fanOut; i++)
+        {
+            int roll = random.nextInt(100);
+            String depId;
+            String range;
+            if (roll < 5)
+            {
+                depId = "missing_mod" + random.nextInt(10);
+                range = "[1.0,)";
+            }
+            else
+            {
+                int dep = random.nextInt(config.mods() - 1);
+                if (dep >= index)
+                {
+                    dep++;
+                }
+                depId = modId(dep);
+                range = roll < 10 ? "[2.0,)" : "[" + modVersion(dep) + ",)";
+            }
+            if (!dependencies.add(depId))
+            {
+                continue;
+            }
+
+            String type = roll >= 95 ? "incompatible" : (roll >= 80 ? "optional" : "required");
+            appendDependency(toml, modId, depId, type, range);
+        }
+        return toml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] libraryToml(String modId, String version)
+    {
+        StringBuilder toml = new StringBuilder();
+        toml.append("modLoader=\"javafml\"\n");
+        toml.append("loaderVersion=\"[4,)\"\n");
+        toml.append("license=\"MIT\"\n\n");
+        toml.append("[[mods]]\n");
+        toml.append("modId=\"").append(modId).append("\"\n");
+        toml.append("version=\"${file.jarVersion}\"\n");
+        toml.append("displayName=\"Generated Library ").append(modId).append("\"\n\n");
+        appendDependency(toml, modId, "neoforge", "required", "[21.1,)");
+        return toml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendDependency(StringBuilder toml, String modId, String depId, String type, String range)
+    {
+        toml.append("[[dependencies.").append(modId).append("]]\n");
+        toml.append("modId=\"").append(depId).append("\"\n");
+        toml.append("type=\"").append(type).append("\"\n");
+        toml.append("versionRange=\"").append(range).append("\"\n");
+        toml.append("ordering=\"NONE\"\n");
+        toml.append("side=\"BOTH\"\n\n");
+    }
+
+    private byte[] accessTransformer(Random random)
+    {
+        StringBuilder cfg = new StringBuilder();
+        for (int i = 0; i < config.atLines(); i++)
+        {
+            String modifier = ClassGenerator.pick(AT_MODIFIERS, random);
+            String target = ClassGenerator.pick(ClassGenerator.TARGET_CLASSES, random).replace('/', '.');
+            switch (random.nextInt(3))
+            {
+                case 0 -> cfg.append(modifier).append(' ').append(target);
+                case 1 -> cfg.append(modifier).append(' ').append(target).append(" field").append(random.nextInt(50));
+                default ->
+                {
+                    String method = ClassGenerator.pick(ClassGenerator.TARGET_METHODS, random);
+                    if (method.indexOf('(') == -1)
+                    {
+                        method += "()V";
+                    }
+                    cfg.append(modifier).append(' ').append(target).append(' ').append(method);
+                }
+            }
+            if (random.nextInt(4) == 0)
+            {
+                cfg.append(" # generated");
+            }
+            cfg.append('\n');
+        }
+        return cfg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] manifest(String modId, String version)
+    {
+        String manifest = "Manifest-Version: 1.0\r\n" +
+                "Implementation-Title: " + modId + "\r\n" +
+                "Implementation-Version: " + version + "\r\n" +
+                "Automatic-Module-Name: " + modId + "\r\n\r\n";
+        return manifest.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Writes the given entries to a JAR with fixed timestamps, nested JARs are alternately stored and compressed
+    private static byte[] writeJar(Map<String, byte[]> entries) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes))
+        {
+            Set<String> directories = new HashSet<>();
+            int nestedJars = 0;
+            for (Map.Entry<String, byte[]> entry : entries.entrySet())
+            {
+                String name = entry.getKey();
+                for (int idx = name.indexOf('/'); idx != -1; idx = name.indexOf('/', idx + 1))
+                {
+                    String dir = name.substring(0, idx + 1);
+                    if (directories.add(dir))
+                    {
+                        ZipEntry dirEntry = new ZipEntry(dir);
+                        dirEntry.setTimeLocal(ENTRY_TIME);
+                        zip.putNextEntry(dirEntry);
+                        zip.closeEntry();
+                    }
+                }
+
+                byte[] data = entry.getValue();
+                ZipEntry zipEntry = new ZipEntry(name);
+                zipEntry.setTimeLocal(ENTRY_TIME);
+                if (name.endsWith(".jar") && nestedJars++ % 2 == 0)
+                {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(data.length);
+                    zipEntry.setCompressedSize(data.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(zipEntry);
+                zip.write(data);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OptionSpec<Integer> intOption(OptionParser parser, String name, String description, int defaultValue)
+    {
+        return parser.accepts(name, description)
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(defaultValue);
+    }
+
+    private static String modId(int index) { return String.format("mod%05d", index); }
+
+    private static String modVersion(int index) { return "1." + (index % 5) + ".0"; }
+
+    private static String libraryId(int index) { return String.format("lib%03d", index); }
+
+    private static String libraryVersion(int index) { return "2." + (index % 3) + "." + index; }
+}
@@ -0,0 +1,43 @@
+package xfacthd.depextract.benchmark.pack;
+
+import com.google.common.base.Preconditions;
+
+// Properties of a generated mod pack, all counts are per mod JAR. The JiJ nesting depth applies to every JAR, a pack
+// with a depth of two therefore contains (jijPerJar + jijPerJar^2) JiJed JARs per mod
+public record PackConfig(
+        int mods,
+        int dependencies,
+        int jijDepth,
+        int jijPerJar,
+        int jijLibraries,
+        int mixinClasses,
+        int injectionsPerMixin,
+        int atLines,
+        int coremods,
+        int classes,
+        long seed
+)
+{
+    public static final PackConfig DEFAULT = new PackConfig(100, 4, 1, 2, 10, 4, 3, 20, 1, 20, 0L);
+
+    public PackConfig
+    {
+        Preconditions.checkArgument(mods > 0, "Expected a positive amount of mods, got %s", mods);
+        Preconditions.checkArgument(dependencies >= 0, "Expected a non-negative dependency fan-out, got %s", dependencies);
+        Preconditions.checkArgument(jijDepth >= 0, "Expected a non-negative JiJ depth, got %s", jijDepth);
+        Preconditions.checkArgument(jijPerJar >= 0, "Expected a non-negative amount of JiJed JARs, got %s", jijPerJar);
+        Preconditions.checkArgument(jijLibraries > 0, "Expected a positive amount of JiJ libraries, got %s", jijLibraries);
+        Preconditions.checkArgument(mixinClasses >= 0, "Expected a non-negative amount of Mixin classes, got %s", mixinClasses);
+        Preconditions.checkArgument(injectionsPerMixin >= 0, "Expected a non-negative amount of injections, got %s", injectionsPerMixin);
+        Preconditions.checkArgument(atLines >= 0, "Expected a non-negative amount of AT lines, got %s", atLines);
+        Preconditions.checkArgument(coremods >= 0, "Expected a non-negative amount of coremods, got %s", coremods);
+        Preconditions.checkArgument(classes >= 0, "Expected a non-negative amount of classes, got %s", classes);
+    }
+
+    public PackConfig withMods(int mods)
+    {
+        return new PackConfig(
+                mods, dependencies, jijDepth, jijPerJar, jijLibraries, mixinClasses, injectionsPerMixin, atLines, coremods, classes, seed
+        );
+    }
+}
@@ -0,0 +1,346 @@
+package xfacthd.depextract.benchmark.pack;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import joptsimple.*;
+import joptsimple.util.PathConverter;
+import xfacthd.depextract.log.Log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Runs the full pipeline of Main on generated mod packs of different sizes with different thread counts, each run in
+// a fresh JVM. The results are written as JSON and CSV and can be compared against the JSON results of an earlier run
+public final class ScalingBenchmark
+{
+    public static final Log LOG = new Log("scaling");
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static final String PACK_CONFIG_NAME = "pack.json";
+    private static final String MEASUREMENT_NAME = "measurement.json";
+    private static final List<String> MAIN_ARGS = List.of(
+            "--minecraft", "1.21.1",
+            "--neoforge", "21.1.77",
+            "--use_cache", "false",
+            "--extract_ats", "true",
+            "--extract_mixins", "true",
+            "--create_graph", "true",
+            "--extract_coremods", "true",
+            "--search_classes", "true",
+            "--target_classes", "net.minecraft.world.level.Level,net.minecraft.world.entity.Entity"
+    );
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        OptionParser parser = new OptionParser();
+        OptionSpec<Integer> sizesOpt = parser.accepts("sizes", "Comma-separated list of pack sizes")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .withValuesSeparatedBy(",")
+                .defaultsTo(100, 1000, 10000);
+        OptionSpec<Integer> threadsOpt = parser.accepts("threads", "Comma-separated list of thread counts")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .withValuesSeparatedBy(",")
+                .defaultsTo(1, Runtime.getRuntime().availableProcessors());
+        OptionSpec<Integer> runsOpt = parser.accepts("runs", "Amount of measured runs per pack size and thread count")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(3);
+        OptionSpec<Integer> warmupRunsOpt = parser.accepts("warmup_runs", "Amount of unmeasured runs per pack size and thread count")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(1);
+        OptionSpec<Path> workDirOpt = parser.accepts("work_dir", "The directory the packs are generated in and the runs are executed in")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter())
+                .defaultsTo(Path.of("scaling"));
+        OptionSpec<Path> resultsOpt = parser.accepts("results", "The results file without extension, a JSON and a CSV file are written")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter())
+                .defaultsTo(Path.of("scaling_results"));
+        OptionSpec<Path> baselineOpt = parser.accepts("baseline", "The JSON results of an earlier run to compare against")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter());
+        OptionSpec<Double> toleranceOpt = parser.accepts("tolerance", "Allowed relative increase of the wall time compared to the baseline")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .defaultsTo(0.15);
+        OptionSpec<Double> maxExponentOpt = parser.accepts("max_exponent", "Maximum allowed exponent of the growth of the wall time with the pack size")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .defaultsTo(1.2);
+        OptionSpec<String> jvmArgsOpt = parser.accepts("jvm_args", "Space-separated list of additional arguments for the JVMs executing the runs")
+                .withRequiredArg()
+                .ofType(String.class);
+        OptionSpec<Long> seedOpt = parser.accepts("seed", "Seed of the pack generator")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(PackConfig.DEFAULT.seed());
+        parser.accepts("help").forHelp();
+
+        OptionSet options = parser.parse(args);
+        if (options.has("help"))
+        {
+            parser.printHelpOn(System.out);
+            return;
+        }
+
+        List<Integer> sizes = options.valuesOf(sizesOpt).stream().sorted().distinct().toList();
+        List<Integer> threadCounts = options.valuesOf(threadsOpt).stream().sorted().distinct().toList();
+        int runs = options.valueOf(runsOpt);
+        int warmupRuns = options.valueOf(warmupRunsOpt);
+        Path workDir = options.valueOf(workDirOpt).toAbsolutePath();
+        List<String> jvmArgs = options.has(jvmArgsOpt) ? List.of(options.valueOf(jvmArgsOpt).trim().split("\\s+")) : List.of();
+        long seed = options.valueOf(seedOpt);
+        Preconditions.checkArgument(runs > 0, "Expected a positive amount of runs, got %s", runs);
+        Preconditions.checkArgument(warmupRuns >= 0, "Expected a non-negative amount of warmup runs, got %s", warmupRuns);
+        Preconditions.checkArgument(threadCounts.get(0) > 0, "Expected positive thread counts, got %s", threadCounts);
+
+        List<Result> results = new ArrayList<>();
+        for (int size : sizes)
+        {
+            PackConfig config = new PackConfig(
+                    size,
+                    PackConfig.DEFAULT.dependencies(),
+                    PackConfig.DEFAULT.jijDepth(),
+                    PackConfig.DEFAULT.jijPerJar(),
+                    PackConfig.DEFAULT.jijLibraries(),
+                    PackConfig.DEFAULT.mixinClasses(),
+                    PackConfig.DEFAULT.injectionsPerMixin(),
+                    PackConfig.DEFAULT.atLines(),
+                    PackConfig.DEFAULT.coremods(),
+                    PackConfig.DEFAULT.classes(),
+                    seed
+            );
+            Path packDir = preparePack(workDir.resolve("pack_" + size), config);
+
+            for (int threads : threadCounts)
+            {
+                LOG.info("Running pack with %d mods using %d thread(s)", size, threads);
+                for (int i = 0; i < warmupRuns; i++)
+                {
+                    runPipeline(packDir, threads, jvmArgs);
+                }
+                List<JsonObject> measurements = new ArrayList<>();
+                for (int i = 0; i < runs; i++)
+                {
+                    measurements.add(runPipeline(packDir, threads, jvmArgs));
+                }
+                Result result = Result.of(size, threads, measurements);
+                LOG.info(
+                        "Pack with %d mods using %d thread(s): %.1fms, %.1f JARs/s, %dms GC, %d MiB peak heap, %d MiB peak RSS",
+                        size, threads, result.wallMs, result.jarsPerSecond, result.gcMs, result.peakHeapBytes >> 20, result.peakRssBytes >> 20
+                );
+                results.add(result);
+            }
+        }
+
+        writeResults(options.valueOf(resultsOpt), results);
+
+        boolean passed = checkScaling(results, sizes, threadCounts, options.valueOf(maxExponentOpt));
+        if (options.has(baselineOpt))
+        {
+            passed &= compareBaseline(results, options.valueOf(baselineOpt), options.valueOf(toleranceOpt));
+        }
+        if (!passed)
+        {
+            LOG.error("Scaling benchmark failed");
+            System.exit(1);
+        }
+    }
+
+    // Generates the pack unless the directory already contains a pack generated with the same config
+    private static Path preparePack(Path packDir, PackConfig config) throws IOException
+    {
+        Path configFile = packDir.resolve(PACK_CONFIG_NAME);
+        String configJson = GSON.toJson(config);
+        if (Files.exists(configFile) && Files.readString(configFile, StandardCharsets.UTF_8).equals(configJson))
+        {
+            LOG.info("Reusing generated pack with %d mods in '%s'", config.mods(), packDir);
+            return packDir;
+        }
+
+        Files.deleteIfExists(configFile);
+        ModpackGenerator.generate(packDir, config);
+        Files.writeString(configFile, configJson, StandardCharsets.UTF_8);
+        return packDir;
+    }
+
+    private static JsonObject runPipeline(Path packDir, int threads, List<String> jvmArgs) throws IOException, InterruptedException
+    {
+        // Each run gets a clean working directory since the reports are written to the working directory
+        Path runDir = packDir.resolve("run");
+        if (Files.exists(runDir))
+        {
+            try (Stream<Path> files = Files.walk(runDir))
+            {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList())
+                {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.createDirectories(runDir);
+        Path measurementFile = runDir.resolve(MEASUREMENT_NAME);
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MeasuredRun.class.getName());
+        command.add(measurementFile.toString());
+        command.add("--directory");
+        command.add(packDir.toString());
+        command.add("--threads");
+        command.add(Integer.toString(threads));
+        command.addAll(MAIN_ARGS);
+
+        Process process = new ProcessBuilder(command)
+                .directory(runDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(runDir.resolve("log.txt").toFile())
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || !Files.exists(measurementFile))
+        {
+            throw new IllegalStateException("Run in '" + runDir + "' failed with exit code " + exitCode + ", see log.txt");
+        }
+        return JsonParser.parseString(Files.readString(measurementFile, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private static void writeResults(Path resultsFile, List<Result> results) throws IOException
+    {
+        Path dir = resultsFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        String name = resultsFile.getFileName().toString();
+
+        Path jsonFile = dir.resolve(name + ".json");
+        Files.writeString(jsonFile, GSON.toJson(results), StandardCharsets.UTF_8);
+
+        Path csvFile = dir.resolve(name + ".csv");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)))
+        {
+            writer.println("mods,threads,wall_ms,jars_per_second,gc_ms,peak_heap_bytes,peak_rss_bytes");
+            for (Result result : results)
+            {
+                writer.printf(
+                        Locale.ROOT,
+                        "%d,%d,%.3f,%.3f,%d,%d,%d%n",
+                        result.mods, result.threads, result.wallMs, result.jarsPerSecond, result.gcMs, result.peakHeapBytes, result.peakRssBytes
+                );
+            }
+        }
+        LOG.info("Results written to '%s' and '%s'", jsonFile, csvFile);
+    }
+
+    // Checks that the wall time grows roughly linearly with the pack size by computing the exponent k of
+    // time ~ size^k between each pair of consecutive pack sizes
+    private static boolean checkScaling(List<Result> results, List<Integer> sizes, List<Integer> threadCounts, double maxExponent)
+    {
+        boolean passed = true;
+        for (int threads : threadCounts)
+        {
+            for (int i = 1; i < sizes.size(); i++)
+            {
+                Result smaller = find(results, sizes.get(i - 1), threads);
+                Result larger = find(results, sizes.get(i), threads);
+                if (smaller == null || larger == null)
+                {
+                    continue;
+                }
+
+                double exponent = Math.log(larger.wallMs / smaller.wallMs) / Math.log((double) larger.mods / smaller.mods);
+                if (exponent > maxExponent)
+                {
+                    LOG.error(
+                            "Wall time grows with exponent %.2f from %d to %d mods using %d thread(s), expected at most %.2f",
+                            exponent, smaller.mods, larger.mods, threads, maxExponent
+                    );
+                    passed = false;
+                }
+                else
+                {
+                    LOG.info("Wall time grows with exponent %.2f from %d to %d mods using %d thread(s)", exponent, smaller.mods, larger.mods, threads);
+                }
+            }
+        }
+        return passed;
+    }
+
+    private static boolean compareBaseline(List<Result> results, Path baselineFile, double tolerance) throws IOException
+    {
+        List<Result> baseline;
+        try (Reader reader = Files.newBufferedReader(baselineFile, StandardCharsets.UTF_8))
+        {
+            baseline = GSON.fromJson(reader, new TypeToken<List<Result>>() { }.getType());
+        }
+
+        boolean passed = true;
+        for (Result result : results)
+        {
+            Result base = find(baseline, result.mods, result.threads);
+            if (base == null)
+            {
+                LOG.warning("No baseline for %d mods using %d thread(s)", result.mods, result.threads);
+                continue;
+            }
+
+            double change = result.wallMs / base.wallMs - 1D;
+            if (change > tolerance)
+            {
+                LOG.error(
+                        "Wall time for %d mods using %d thread(s) regressed by %.1f%% (%.1fms -> %.1fms), tolerance is %.1f%%",
+                        result.mods, result.threads, change * 100D, base.wallMs, result.wallMs, tolerance * 100D
+                );
+                passed = false;
+            }
+            else
+            {
+                LOG.info(
+                        "Wall time for %d mods using %d thread(s) changed by %+.1f%% (%.1fms -> %.1fms)",
+                        result.mods, result.threads, change * 100D, base.wallMs, result.wallMs
+                );
+            }
+        }
+        return passed;
+    }
+
+    private static Result find(List<Result> results, int mods, int threads)
+    {
+        for (Result result : results)
+        {
+            if (result.mods == mods && result.threads == threads)
+            {
+                return result;
+            }
+        }
+        return null;
+    }
+
+
+
+    // Wall and GC time are the median of the measured runs, memory usage is the maximum of the measured runs
+    private record Result(int mods, int threads, double wallMs, double jarsPerSecond, long gcMs, long peakHeapBytes, long peakRssBytes)
+    {
+        static Result of(int mods, int threads, List<JsonObject> measurements)
+        {
+            double wallMs = median(measurements.stream().mapToDouble(obj -> obj.get("wall_ms").getAsDouble()).toArray());
+            double gcMs = median(measurements.stream().mapToDouble(obj -> obj.get("gc_ms").getAsLong()).toArray());
+            long peakHeap = measurements.stream().mapToLong(obj -> obj.get("peak_heap_bytes").getAsLong()).max().orElse(-1);
+            long peakRss = measurements.stream().mapToLong(obj -> obj.get("peak_rss_bytes").getAsLong()).max().orElse(-1);
+            return new Result(mods, threads, wallMs, mods / (wallMs / 1000D), Math.round(gcMs), peakHeap, peakRss);
+        }
+
+        private static double median(double[] values)
+        {
+            Arrays.sort(values);
+            int mid = values.length / 2;
+            return values.length % 2 == 1 ? values[mid] : (values[mid - 1] + values[mid]) / 2D;
+        }
+    }
+}
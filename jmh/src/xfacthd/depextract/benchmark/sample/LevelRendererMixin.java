@@ -0,0 +1,46 @@
+package xfacthd.depextract.benchmark.sample;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Overwrite;
+import org.spongepowered.asm.mixin.injection.*;
+
+@Mixin(targets = "net.minecraft.client.renderer.LevelRenderer")
+public abstract class LevelRendererMixin
+{
+    @Inject(
+            method = "renderLevel",
+            at = @At(value = "INVOKE_STRING", target = "Lnet/minecraft/util/profiling/ProfilerFiller;popPush(Ljava/lang/String;)V", args = "ldc=blockentities")
+    )
+    private void depextract$beforeBlockEntities(Object ci) { }
+
+    @Inject(
+            method = "renderLevel",
+            at = @At(value = "FIELD", target = "Lnet/minecraft/client/renderer/LevelRenderer;renderBuffers:Lnet/minecraft/client/renderer/RenderBuffers;", opcode = 180, ordinal = 1)
+    )
+    private void depextract$onRenderBuffers(Object ci) { }
+
+    @ModifyArgs(
+            method = "renderSky",
+            at = @At(value = "INVOKE", target = "Lcom/mojang/blaze3d/systems/RenderSystem;setShaderColor(FFFF)V", ordinal = 0)
+    )
+    private void depextract$modifySkyColor(Object args) { }
+
+    @ModifyConstant(
+            method = "renderClouds",
+            constant = { @Constant(floatValue = 12F), @Constant(doubleValue = 0.33D) }
+    )
+    private float depextract$modifyCloudHeight(float value) { return value; }
+
+    @Redirect(
+            method = "renderLevel",
+            at = @At(value = "NEW", target = "net/minecraft/client/renderer/culling/Frustum")
+    )
+    private Object depextract$redirectFrustum(Object matrix, Object projection) { return null; }
+
+    /**
+     * @author depextract
+     * @reason Benchmark sample
+     */
+    @Overwrite
+    public boolean shouldShowEntityOutlines() { return false; }
+}
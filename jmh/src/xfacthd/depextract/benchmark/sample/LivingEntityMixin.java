@@ -0,0 +1,42 @@
+package xfacthd.depextract.benchmark.sample;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.*;
+
+@Mixin(targets = "net.minecraft.world.entity.LivingEntity")
+public abstract class LivingEntityMixin
+{
+    @Inject(method = "tick()V", at = @At("HEAD"), cancellable = true)
+    private void depextract$onTick(Object ci) { }
+
+    @Inject(
+            method = "hurt(Lnet/minecraft/world/damagesource/DamageSource;F)Z",
+            at = {
+                    @At(value = "INVOKE", target = "Lnet/minecraft/world/entity/LivingEntity;actuallyHurt(Lnet/minecraft/world/damagesource/DamageSource;F)V", shift = At.Shift.AFTER),
+                    @At("RETURN")
+            }
+    )
+    private void depextract$afterHurt(Object source, float amount, Object cir) { }
+
+    @Redirect(
+            method = "travel(Lnet/minecraft/world/phys/Vec3;)V",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/level/block/Block;getFriction()F")
+    )
+    private float depextract$redirectFriction(Object block) { return 0.6F; }
+
+    @ModifyArg(
+            method = "jumpFromGround()V",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/entity/LivingEntity;setDeltaMovement(DDD)V"),
+            index = 1
+    )
+    private double depextract$modifyJumpVelocity(double velocity) { return velocity; }
+
+    @ModifyVariable(method = "heal(F)V", at = @At("HEAD"), ordinal = 0)
+    private float depextract$modifyHealAmount(float amount) { return amount; }
+
+    @ModifyConstant(method = "getMaxHealth()F", constant = @Constant(floatValue = 20F))
+    private float depextract$modifyMaxHealth(float value) { return value; }
+
+    @Inject(method = "die(Lnet/minecraft/world/damagesource/DamageSource;)V", at = @At("TAIL"))
+    private void depextract$onDeath(Object source, Object ci) { }
+}
@@ -0,0 +1,26 @@
+package xfacthd.depextract.benchmark.sample;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.*;
+
+@Mixin(targets = "net.minecraft.client.Minecraft")
+public interface MinecraftAccessor
+{
+    @Accessor
+    int getRightClickDelay();
+
+    @Accessor("rightClickDelay")
+    void depextract$setRightClickDelay(int delay);
+
+    @Accessor
+    boolean isPause();
+
+    @Invoker
+    void callStartUseItem();
+
+    @Invoker("pickBlock")
+    void depextract$pickBlock();
+
+    @Invoker
+    boolean invokeStartAttack();
+}
@@ -2,35 +2,52 @@ package xfacthd.depextract;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.*;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 import joptsimple.*;
 import joptsimple.util.PathConverter;
 import joptsimple.util.PathProperties;
 import org.apache.maven.artifact.versioning.*;
+import xfacthd.depextract.archive.ModArchive;
 import xfacthd.depextract.data.*;
 import xfacthd.depextract.extractor.*;
+import xfacthd.depextract.jfr.*;
 import xfacthd.depextract.log.Log;
+import xfacthd.depextract.metrics.*;
 import xfacthd.depextract.util.*;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.nio.file.*;
+import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Stream;
 
 public class Main
 {
     public static final Log LOG = new Log("main");
-    private static final Gson GSON = new Gson();
+    private static final String METRICS_FILE_NAME = "metrics.json";
 
     public static void main(String[] args)
     {
-        List<DataExtractor> extractors = new ArrayList<>();
+        List<DataExtractor<?>> extractors = new ArrayList<>();
 
+        // Mixin and AT targets are validated against the member index of the Minecraft JAR
+        MemberIndexProvider memberIndex = new MemberIndexProvider();
+        // Extractors splitting the work on large mod JARs run their tasks on the pool reading the mod JARs
+        WorkerPool workerPool = new WorkerPool();
         DependencyExtractor depExtractor = new DependencyExtractor();
         extractors.add(depExtractor);
-        extractors.add(new AccessTransformerExtractor());
-        extractors.add(new MixinExtractor());
+        extractors.add(new AccessTransformerExtractor(memberIndex));
+        extractors.add(new MixinExtractor(memberIndex, workerPool));
         extractors.add(new CoremodExtractor());
-        extractors.add(new ClassFinderExtractor());
+        // The class index must be written before the ClassFinder queries it
+        ClassIndexExtractor classIndexExtractor = new ClassIndexExtractor();
+        extractors.add(classIndexExtractor);
+        extractors.add(new ClassFinderExtractor(classIndexExtractor, workerPool));
+        extractors.add(new ClassHierarchyExtractor());
+        extractors.add(new DuplicateClassExtractor());
 
         OptionParser parser = new OptionParser();
         OptionSpec<Path> directoryOpt = parser.accepts("directory", "The root directory of the Minecraft installation")
@@ -53,6 +70,35 @@ public class Main
                 .withRequiredArg()
                 .ofType(Boolean.class)
                 .defaultsTo(false);
+        OptionSpec<Boolean> useZipFsOpt = parser.accepts("use_zipfs", "Read the mod JARs with the JDK's zip file system instead of the built-in archive reader")
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(false);
+        OptionSpec<Integer> threadsOpt = parser.accepts("threads", "Amount of threads used to read and analyse the mod JARs")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(Runtime.getRuntime().availableProcessors());
+        OptionSpec<Boolean> useCacheOpt = parser.accepts("use_cache", "Reuse the results of unchanged mod JARs from previous runs")
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(true);
+        OptionSpec<Path> cacheDirOpt = parser.accepts("cache_dir", "The directory the results of previous runs are cached in")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter())
+                .defaultsTo(Path.of(".depextract-cache"));
+        OptionSpec<Path> jfrOpt = parser.accepts("jfr", "Record a Java Flight Recording including the events of the individual processing steps to the given file")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter());
+        OptionSpec<Boolean> metricsOpt = parser.accepts("metrics", "Write timings and other measurements of each mod JAR to metrics.json and log the slowest mod JARs")
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(false);
+        OptionSpec<Integer> metricsTopOpt = parser.accepts("metrics_top", "Amount of slowest mod JARs to log")
+                .availableIf(metricsOpt)
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(10);
+        memberIndex.registerOptions(parser);
         extractors.forEach(extractor -> extractor.registerOptions(parser));
 
         if (args.length == 0 || (args.length == 1 && (args[0].equals("help") || args[0].equals("--help"))))
@@ -69,6 +115,8 @@ public class Main
         }
 
         OptionSet options = parser.parse(args);
+        Recording recording = options.has(jfrOpt) ? startRecording(options.valueOf(jfrOpt)) : null;
+        memberIndex.readOptions(options);
         extractors.forEach(extractor -> extractor.readOptions(options));
         extractors = extractors.stream().filter(DataExtractor::isActive).toList();
 
@@ -77,12 +125,19 @@ public class Main
         boolean darkMode = options.valueOf(darkOpt);
         boolean minify = options.valueOf(minifyOpt);
         boolean openResult = options.valueOf(openResultOpt);
+        boolean useZipFs = options.valueOf(useZipFsOpt);
+        int threads = options.valueOf(threadsOpt);
+        boolean useCache = options.valueOf(useCacheOpt);
+        Path cacheDir = options.valueOf(cacheDirOpt);
+        boolean writeMetrics = options.valueOf(metricsOpt);
+        int metricsTop = options.valueOf(metricsTopOpt);
 
         LOG.info("Minecraft version: " + depExtractor.getMCVersion());
         LOG.info("NeoForge version: " + depExtractor.getNeoForgeVersion());
         LOG.info("Instance directory: " + directory);
 
         Preconditions.checkArgument(Files.isDirectory(directory), "Expected a directory for argument --directory, got a file");
+        Preconditions.checkArgument(threads > 0, "Expected a positive thread count for argument --threads, got %s", threads);
         Path modFolder = directory.resolve("mods");
         Preconditions.checkArgument(Files.exists(modFolder) && Files.isDirectory(modFolder), "Expected to find a mods directory");
 
@@ -122,13 +177,63 @@ public class Main
         }
         LOG.info("Found %d mod JARs", mods.size());
 
-        LOG.info("Discovering mod entries...");
-        discoverModEntries(mods, extractors, false);
+        ScanCache cache = null;
+        if (useCache)
+        {
+            try
+            {
+                cache = ScanCache.open(cacheDir, extractors);
+            }
+            catch (IOException e)
+            {
+                LOG.error("Failed to open scan cache in '%s', all mod JARs will be read", cacheDir, e);
+            }
+        }
+
+        Metrics metrics = new Metrics(extractors.stream().map(DataExtractor::name).toList());
+
+        LOG.info("Discovering mod entries using %d thread(s)...", threads);
+        long discoveryStart = System.nanoTime();
+        workerPool.start(threads);
+        discoverModEntries(mods, extractors, useZipFs, threads, workerPool, cache, metrics);
+        if (cache != null)
+        {
+            cache.prune();
+        }
+        metrics.addPhaseTime("discovery", System.nanoTime() - discoveryStart);
         int modCount = depExtractor.getModCount();
         LOG.info("Discovered %d mod entries in %d mod JARs", modCount, mods.size());
 
-        extractors.forEach(DataExtractor::postProcessData);
-        extractors.forEach(extractor -> extractor.printResults(darkMode, minify, modCount));
+        if (memberIndex.isActive())
+        {
+            long start = System.nanoTime();
+            memberIndex.load(useCache ? cacheDir : null);
+            metrics.addPhaseTime("member_index", System.nanoTime() - start);
+        }
+
+        for (DataExtractor<?> extractor : extractors)
+        {
+            long start = System.nanoTime();
+            extractor.postProcessData();
+            metrics.addPhaseTime("post_process/" + extractor.name(), System.nanoTime() - start);
+        }
+        workerPool.shutdown();
+        for (DataExtractor<?> extractor : extractors)
+        {
+            ReportWriteEvent event = new ReportWriteEvent();
+            event.begin();
+            long start = System.nanoTime();
+            extractor.printResults(darkMode, minify, modCount);
+            metrics.addPhaseTime("print_results/" + extractor.name(), System.nanoTime() - start);
+            event.extractor = extractor.name();
+            event.commit();
+        }
+
+        if (writeMetrics)
+        {
+            metrics.logSlowestJars(metricsTop);
+            metrics.write(Path.of(METRICS_FILE_NAME));
+        }
 
         if (openResult)
         {
@@ -136,76 +241,294 @@ public class Main
             Utils.openFileInDefaultSoftware(DependencyExtractor.DEP_RESULT_FILE_NAME);
         }
 
+        if (recording != null)
+        {
+            recording.stop();
+            LOG.info("Flight recording written to '%s'", recording.getDestination());
+            recording.close();
+        }
+
         LOG.info("Done, terminating");
     }
 
+    @Nullable
+    private static Recording startRecording(Path file)
+    {
+        try
+        {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("ModDepExtract");
+            recording.setDestination(file);
+            // Make sure the recording is written even if the run is aborted
+            recording.setDumpOnExit(true);
+            recording.start();
+            LOG.info("Started flight recording to '%s'", file);
+            return recording;
+        }
+        catch (IOException | ParseException e)
+        {
+            LOG.error("Failed to start flight recording to '%s'", file, e);
+            return null;
+        }
+    }
+
     private static void discoverModEntries(
-            List<FileEntry> mods, List<DataExtractor> extractors, boolean nested
+            List<FileEntry> mods,
+            List<DataExtractor<?>> extractors,
+            boolean useZipFs,
+            int threads,
+            WorkerPool workerPool,
+            @Nullable ScanCache cache,
+            Metrics metrics
     )
     {
-        for (FileEntry modEntry : mods)
+        // Identical JiJed JARs embedded in multiple mod JARs are only read once
+        Map<NestedJarKey, NestedJarResults> nestedJars = new ConcurrentHashMap<>();
+        if (threads == 1)
         {
-            Path modFile = modEntry.filePath();
-            LOG.debug("Reading mod JAR '%s'...", modFile.getFileName());
+            for (FileEntry modEntry : mods)
+            {
+                JarMetrics jarMetrics = metrics.createJar(modEntry.filePath().getFileName().toString());
+                scanModJar(modEntry, extractors, useZipFs, cache, nestedJars, jarMetrics).forEach(ExtractorResult::commit);
+            }
+            return;
+        }
+
+        // Each mod JAR is read on a worker thread, the results are committed in discovery order on the main
+        // thread to keep the extracted data identical to a single-threaded run
+        ExecutorService executor = workerPool.executor();
+        try
+        {
+            List<Future<List<ExtractorResult<?>>>> futures = new ArrayList<>(mods.size());
+            for (FileEntry modEntry : mods)
+            {
+                JarMetrics jarMetrics = metrics.createJar(modEntry.filePath().getFileName().toString());
+                futures.add(executor.submit(() -> scanModJar(modEntry, extractors, useZipFs, cache, nestedJars, jarMetrics)));
+            }
 
-            try (FileSystem jarFs = FileSystems.newFileSystem(modFile))
+            for (Future<List<ExtractorResult<?>>> future : futures)
             {
-                String fileName = modFile.getFileName().toString();
-                extractJiJedMods(modFile, fileName, jarFs, extractors);
-                extractors.forEach(extractor ->
+                future.get().forEach(ExtractorResult::commit);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while discovering mod entries", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException("Encountered an unexpected exception while discovering mod entries", e.getCause());
+        }
+    }
+
+    private static List<ExtractorResult<?>> scanModJar(
+            FileEntry modEntry,
+            List<DataExtractor<?>> extractors,
+            boolean useZipFs,
+            @Nullable ScanCache cache,
+            Map<NestedJarKey, NestedJarResults> nestedJars,
+            JarMetrics metrics
+    )
+    {
+        metrics.start();
+        try
+        {
+            Path modFile = modEntry.filePath();
+            if (cache != null)
+            {
+                List<ExtractorResult<?>> cached = cache.load(modFile);
+                if (cached != null)
                 {
-                    try
-                    {
-                        extractor.acceptFile(fileName, jarFs, nested, modEntry);
-                    }
-                    catch (IOException e)
-                    {
-                        LOG.error("Extractor '%s' failed to process mod JAR '%s'", extractor.name(), fileName, e);
-                    }
-                });
+                    metrics.markCached();
+                    return cached;
+                }
+            }
+
+            // Partial results of a JAR that failed to be read completely are not cached to retry it on the next run
+            List<ExtractorResult<?>> results = new ArrayList<>();
+            if (readModJar(modEntry, extractors, useZipFs, results, nestedJars, metrics) && cache != null)
+            {
+                cache.store(modFile, results);
+            }
+            return results;
+        }
+        finally
+        {
+            metrics.finish();
+        }
+    }
+
+    private static boolean readModJar(
+            FileEntry modEntry,
+            List<DataExtractor<?>> extractors,
+            boolean useZipFs,
+            List<ExtractorResult<?>> results,
+            Map<NestedJarKey, NestedJarResults> nestedJars,
+            JarMetrics metrics
+    )
+    {
+        Path modFile = modEntry.filePath();
+        JarReadEvent event = new JarReadEvent();
+        event.begin();
+        long openStart = System.nanoTime();
+        try (ModArchive archive = ModArchive.open(modFile, useZipFs))
+        {
+            metrics.addOpenTime(System.nanoTime() - openStart);
+            event.size = archive.size();
+            return readModJar(modEntry, archive, extractors, 0, results, nestedJars, metrics);
+        }
+        catch (IOException e)
+        {
+            LOG.error("Encountered an exception while reading mod JAR '%s'!", modFile.getFileName(), e);
+            return false;
+        }
+        finally
+        {
+            event.fileName = modFile.getFileName().toString();
+            event.depth = 0;
+            event.commit();
+        }
+    }
+
+    // Returns false if any part of the JAR or its JiJed JARs failed to be read
+    private static boolean readModJar(
+            FileEntry modEntry,
+            ModArchive archive,
+            List<DataExtractor<?>> extractors,
+            int depth,
+            List<ExtractorResult<?>> results,
+            Map<NestedJarKey, NestedJarResults> nestedJars,
+            JarMetrics metrics
+    )
+    {
+        Path modFile = modEntry.filePath();
+        LOG.debug("Reading mod JAR '%s'...", modFile.getFileName());
+
+        String fileName = modFile.getFileName().toString();
+        JarContext context = new JarContext(fileName, archive, depth, modEntry, metrics);
+        boolean complete = extractJiJedMods(modFile, context, extractors, results, nestedJars);
+
+        List<List<String>> routedEntries;
+        try
+        {
+            routedEntries = routeEntries(context, extractors);
+        }
+        catch (IOException e)
+        {
+            LOG.error("Failed to list entries of mod JAR '%s'", fileName, e);
+            return false;
+        }
+
+        for (int i = 0; i < extractors.size(); i++)
+        {
+            DataExtractor<?> extractor = extractors.get(i);
+            List<String> entries = routedEntries.get(i);
+            if (entries.isEmpty() && !extractor.entryMatcher().everyJar())
+            {
+                continue;
+            }
+
+            ExtractorAcceptEvent event = new ExtractorAcceptEvent();
+            event.begin();
+            long start = System.nanoTime();
+            try
+            {
+                runExtractor(extractor, context, entries, results);
             }
             catch (IOException e)
             {
-                LOG.error("Encountered an exception while reading mod JAR '%s'!", modFile.getFileName(), e);
+                LOG.error("Extractor '%s' failed to process mod JAR '%s'", extractor.name(), fileName, e);
+                complete = false;
             }
+            metrics.addExtractorTime(extractor.name(), System.nanoTime() - start);
+            event.extractor = extractor.name();
+            event.fileName = fileName;
+            event.entries = entries.size();
+            event.commit();
         }
+        return complete;
     }
 
-    private static void extractJiJedMods(Path modPath, String fileName, FileSystem modJar, List<DataExtractor> extractors)
+    // Collects the entries each extractor is interested in with a single pass over the JAR's entries
+    private static List<List<String>> routeEntries(JarContext context, List<DataExtractor<?>> extractors) throws IOException
     {
-        Path jijMetaPath = modJar.getPath("META-INF/jarjar/metadata.json");
-        if (!Files.exists(jijMetaPath))
+        EntryMatcher[] matchers = new EntryMatcher[extractors.size()];
+        List<List<String>> routedEntries = new ArrayList<>(extractors.size());
+        for (int i = 0; i < matchers.length; i++)
         {
-            return;
+            matchers[i] = extractors.get(i).entryMatcher();
+            routedEntries.add(new ArrayList<>());
         }
 
-        LOG.debug("Found JiJ metadata in mod JAR '%s'", fileName);
+        for (String entry : context.entries())
+        {
+            for (int i = 0; i < matchers.length; i++)
+            {
+                if (matchers[i].matches(entry))
+                {
+                    routedEntries.get(i).add(entry);
+                }
+            }
+        }
+        return routedEntries;
+    }
+
+    private static <T> void runExtractor(
+            DataExtractor<T> extractor, JarContext context, List<String> entries, List<ExtractorResult<?>> results
+    ) throws IOException
+    {
+        T result = extractor.acceptFile(context, entries);
+        if (result != null)
+        {
+            results.add(new ExtractorResult<>(extractor, context.fileName(), result));
+        }
+    }
 
+    private static boolean extractJiJedMods(
+            Path modPath,
+            JarContext modJar,
+            List<DataExtractor<?>> extractors,
+            List<ExtractorResult<?>> results,
+            Map<NestedJarKey, NestedJarResults> nestedJars
+    )
+    {
+        String fileName = modJar.fileName();
+        long jijMetaStart = System.nanoTime();
         JsonObject metadata;
         try
         {
-            InputStream metaStream = Files.newInputStream(jijMetaPath);
-            metadata = GSON.fromJson(new InputStreamReader(metaStream), JsonObject.class);
+            metadata = modJar.jijMetadata();
         }
         catch (IOException e)
         {
             LOG.error("Encountered an exception while reading JiJ metadata from mod JAR '%s'", fileName, e);
-            return;
+            return false;
+        }
+        finally
+        {
+            modJar.metrics().addJiJMetaTime(System.nanoTime() - jijMetaStart);
+        }
+        if (metadata == null)
+        {
+            return true;
         }
 
+        LOG.debug("Found JiJ metadata in mod JAR '%s'", fileName);
+
         if (!metadata.has("jars") || metadata.getAsJsonArray("jars").isEmpty())
         {
-            return;
+            return true;
         }
 
         JsonArray jars = metadata.getAsJsonArray("jars");
-        List<FileEntry> jarEntries = new ArrayList<>();
+        boolean complete = true;
 
         for (JsonElement elem : jars)
         {
             JsonObject obj = elem.getAsJsonObject();
-            Path path = modJar.getPath(obj.get("path").getAsString());
-            if (!Files.exists(path))
+            String path = obj.get("path").getAsString();
+            if (!modJar.exists(path))
             {
                 LOG.error("JiJed mod JAR at path '%s' is missing from mod JAR '%s'", path, fileName);
                 continue;
@@ -232,9 +555,67 @@ public class Main
 
             JarInJarMeta jijMeta = new JarInJarMeta(group, artifact, range, artifactVersion, obfuscated);
 
-            jarEntries.add(new FileEntry(modPath, path, jijMeta));
-        }
+            // The path of a JiJed JAR only serves as a descriptive location, its content is read through the outer JAR
+            FileEntry jarEntry = new FileEntry(modPath, modPath.resolve(ModArchive.normalize(path)), jijMeta);
 
-        discoverModEntries(jarEntries, extractors, true);
+            NestedJarKey key;
+            try
+            {
+                String nestedName = jarEntry.filePath().getFileName().toString();
+                key = new NestedJarKey(nestedName, modJar.archive().fingerprint(path), jijMeta);
+            }
+            catch (IOException e)
+            {
+                LOG.error("Failed to read JiJed mod JAR '%s' from mod JAR '%s'!", path, fileName, e);
+                complete = false;
+                continue;
+            }
+
+            NestedJarResults known = nestedJars.get(key);
+            if (known != null)
+            {
+                LOG.debug("Reusing results of identical JiJed mod JAR '%s' in mod JAR '%s'", path, fileName);
+                known.results().forEach(result -> results.add(result.relocate(known.source(), modPath)));
+                modJar.metrics().addNestedJar(true);
+                continue;
+            }
+
+            modJar.metrics().addNestedJar(false);
+            List<ExtractorResult<?>> nestedResults = new ArrayList<>();
+            JarReadEvent event = new JarReadEvent();
+            event.begin();
+            long openStart = System.nanoTime();
+            try (ModArchive nestedJar = modJar.archive().openNested(path))
+            {
+                modJar.metrics().addOpenTime(System.nanoTime() - openStart);
+                event.size = nestedJar.size();
+                if (readModJar(jarEntry, nestedJar, extractors, modJar.depth() + 1, nestedResults, nestedJars, modJar.metrics()))
+                {
+                    nestedJars.putIfAbsent(key, new NestedJarResults(modPath, List.copyOf(nestedResults)));
+                }
+                else
+                {
+                    complete = false;
+                }
+            }
+            catch (IOException e)
+            {
+                LOG.error("Encountered an exception while reading JiJed mod JAR '%s' from mod JAR '%s'!", path, fileName, e);
+                complete = false;
+            }
+            finally
+            {
+                event.fileName = key.fileName();
+                event.depth = modJar.depth() + 1;
+                event.commit();
+            }
+            results.addAll(nestedResults);
+        }
+        return complete;
     }
+
+    // The JiJ metadata is part of the key as the version of JiJed libraries may be taken from it
+    private record NestedJarKey(String fileName, String fingerprint, JarInJarMeta meta) { }
+
+    private record NestedJarResults(Path source, List<ExtractorResult<?>> results) { }
 }
@@ -0,0 +1,59 @@
+package xfacthd.depextract.archive;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Pool of heap buffers backing inflated nested archives, shared by all worker threads. Only buffers up to a modest
+// size are pooled and the total pooled capacity is capped to a few buffers per core, larger nested archives use
+// buffers which are released to the GC right away
+final class BufferPool
+{
+    private static final int MIN_CAPACITY = 64 * 1024;
+    private static final int MAX_POOLED_CAPACITY = 8 * 1024 * 1024;
+    private static final long MAX_POOLED_BYTES = 2L * Runtime.getRuntime().availableProcessors() * MAX_POOLED_CAPACITY;
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private long pooledBytes = 0;
+
+    // Returns a buffer with at least the requested capacity, the content of the buffer is undefined
+    public ByteBuffer acquire(int size)
+    {
+        synchronized (buffers)
+        {
+            int best = -1;
+            for (int i = 0; i < buffers.size(); i++)
+            {
+                int capacity = buffers.get(i).capacity();
+                if (capacity >= size && (best == -1 || capacity < buffers.get(best).capacity()))
+                {
+                    best = i;
+                }
+            }
+            if (best != -1)
+            {
+                ByteBuffer buffer = buffers.remove(best);
+                pooledBytes -= buffer.capacity();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocate(Math.max(size, MIN_CAPACITY));
+    }
+
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer.capacity() > MAX_POOLED_CAPACITY)
+        {
+            return;
+        }
+
+        synchronized (buffers)
+        {
+            if (pooledBytes + buffer.capacity() <= MAX_POOLED_BYTES)
+            {
+                buffers.add(buffer);
+                pooledBytes += buffer.capacity();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package xfacthd.depextract.archive;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.List;
+
+// Read-only view of a mod JAR. Entry names are relative to the archive root, leading slashes are ignored
+public interface ModArchive extends Closeable
+{
+    boolean exists(String name);
+
+    InputStream open(String name) throws IOException;
+
+    byte[] read(String name) throws IOException;
+
+    // Names of all files in this archive in lexicographic order
+    List<String> entries() throws IOException;
+
+    ModArchive openNested(String name) throws IOException;
+
+    // Size of the whole archive in bytes
+    long size();
+
+    // CRC-32 and uncompressed size of the given entry, identical fingerprints imply identical contents
+    String fingerprint(String name) throws IOException;
+
+    // CRC-32 of the given entry as stored in the central directory, available without inflating the entry
+    int crc(String name) throws IOException;
+
+    static ModArchive open(Path file, boolean useZipFs) throws IOException
+    {
+        return useZipFs ? ZipFsArchive.open(file) : ZipArchive.open(file);
+    }
+
+    static String normalize(String name)
+    {
+        int start = 0;
+        while (start < name.length() && name.charAt(start) == '/')
+        {
+            start++;
+        }
+        return start == 0 ? name : name.substring(start);
+    }
+}
@@ -0,0 +1,530 @@
+package xfacthd.depextract.archive;
+
+import java.io.*;
+import java.lang.invoke.*;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+// Archive which only reads the central directory of the ZIP file into a compact index sorted by entry name,
+// the entries themselves are inflated on demand from the memory-mapped file. Nested archives are read in place
+// from the outer archive's memory if stored or inflated exactly once into a pooled buffer if compressed. The mapping
+// of a top-level archive is released on close, nested archives must therefore be closed before their outer archive
+final class ZipArchive implements ModArchive
+{
+    private static final BufferPool NESTED_BUFFER_POOL = new BufferPool();
+    private static final MethodHandle UNMAPPER = findUnmapper();
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIG = 0x06064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int CEN_SIZE = 46;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int LOC_SIZE = 30;
+    private static final int FLAG_ENCRYPTED = 0x1;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final ByteBuffer data;
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] compressedSizes;
+    private final long[] sizes;
+    private final int[] crcs;
+    private final short[] methods;
+    private ByteBuffer pooledBuffer = null;
+    private MappedByteBuffer mapping = null;
+    private boolean closed = false;
+
+    private ZipArchive(
+            ByteBuffer data, String[] names, int[] offsets, int[] compressedSizes, long[] sizes, int[] crcs, short[] methods
+    )
+    {
+        this.data = data;
+        this.names = names;
+        this.offsets = offsets;
+        this.compressedSizes = compressedSizes;
+        this.sizes = sizes;
+        this.crcs = crcs;
+        this.methods = methods;
+    }
+
+    @Override
+    public boolean exists(String name)
+    {
+        return find(name) >= 0;
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException
+    {
+        int idx = findOrThrow(name);
+        InputStream stream = new ByteBufferInputStream(rawData(idx));
+        return methods[idx] == METHOD_DEFLATED ? new EntryInflaterInputStream(stream) : stream;
+    }
+
+    @Override
+    public byte[] read(String name) throws IOException
+    {
+        int idx = findOrThrow(name);
+        ByteBuffer raw = rawData(idx);
+        if (methods[idx] == METHOD_STORED)
+        {
+            byte[] result = new byte[raw.remaining()];
+            raw.get(result);
+            return result;
+        }
+
+        byte[] result = new byte[checkSize(idx)];
+        inflate(idx, raw, result);
+        return result;
+    }
+
+    @Override
+    public List<String> entries()
+    {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    @Override
+    public ModArchive openNested(String name) throws IOException
+    {
+        int idx = findOrThrow(name);
+        ByteBuffer raw = rawData(idx);
+        if (methods[idx] == METHOD_STORED)
+        {
+            return read(raw);
+        }
+
+        int size = checkSize(idx);
+        ByteBuffer buffer = NESTED_BUFFER_POOL.acquire(size);
+        try
+        {
+            inflate(idx, raw, buffer.array());
+            ZipArchive archive = read(buffer.slice(0, size));
+            archive.pooledBuffer = buffer;
+            return archive;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            NESTED_BUFFER_POOL.release(buffer);
+            throw e;
+        }
+    }
+
+    @Override
+    public long size()
+    {
+        return data.limit();
+    }
+
+    @Override
+    public String fingerprint(String name) throws IOException
+    {
+        int idx = findOrThrow(name);
+        return Integer.toHexString(crcs[idx]) + ":" + sizes[idx];
+    }
+
+    @Override
+    public int crc(String name) throws IOException
+    {
+        return crcs[findOrThrow(name)];
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        if (pooledBuffer != null)
+        {
+            NESTED_BUFFER_POOL.release(pooledBuffer);
+            pooledBuffer = null;
+        }
+        if (mapping != null)
+        {
+            unmap(mapping);
+            mapping = null;
+        }
+    }
+
+    private int find(String name)
+    {
+        return Arrays.binarySearch(names, ModArchive.normalize(name));
+    }
+
+    private int findOrThrow(String name) throws NoSuchFileException
+    {
+        int idx = find(name);
+        if (idx < 0)
+        {
+            throw new NoSuchFileException(name);
+        }
+        return idx;
+    }
+
+    private int checkSize(int idx) throws ZipException
+    {
+        if (sizes[idx] > Integer.MAX_VALUE - 8)
+        {
+            throw new ZipException("Entry '" + names[idx] + "' is too large");
+        }
+        return (int) sizes[idx];
+    }
+
+    // Inflates the entry into the start of the given array, which must be able to hold the entire entry
+    private void inflate(int idx, ByteBuffer raw, byte[] dest) throws ZipException
+    {
+        int size = (int) sizes[idx];
+        Inflater inflater = new Inflater(true);
+        try
+        {
+            inflater.setInput(raw);
+            int read = 0;
+            while (read < size)
+            {
+                int count = inflater.inflate(dest, read, size - read);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    break;
+                }
+                read += count;
+            }
+            if (read != size)
+            {
+                throw new ZipException("Entry '" + names[idx] + "' is truncated");
+            }
+        }
+        catch (DataFormatException e)
+        {
+            throw new ZipException("Entry '" + names[idx] + "' is corrupted: " + e.getMessage());
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private ByteBuffer rawData(int idx) throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Archive is closed");
+        }
+
+        int offset = offsets[idx];
+        if (data.getInt(offset) != LOC_SIG)
+        {
+            throw new ZipException("Invalid local header for entry '" + names[idx] + "'");
+        }
+        if (methods[idx] != METHOD_STORED && methods[idx] != METHOD_DEFLATED)
+        {
+            throw new ZipException("Unsupported compression method " + methods[idx] + " for entry '" + names[idx] + "'");
+        }
+
+        int start = offset + LOC_SIZE + u16(data, offset + 26) + u16(data, offset + 28);
+        if (start + compressedSizes[idx] > data.limit())
+        {
+            throw new ZipException("Entry '" + names[idx] + "' exceeds the archive bounds");
+        }
+        return data.slice(start, compressedSizes[idx]);
+    }
+
+
+
+    static ZipArchive open(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new ZipException("Archive '" + file + "' is too large");
+            }
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try
+            {
+                ZipArchive archive = read(mapping);
+                archive.mapping = mapping;
+                return archive;
+            }
+            catch (IOException | RuntimeException e)
+            {
+                unmap(mapping);
+                throw e;
+            }
+        }
+    }
+
+    static ZipArchive read(ByteBuffer data) throws ZipException
+    {
+        ByteBuffer buf = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        int eocd = findEndOfCentralDirectory(buf);
+        if (eocd < 0)
+        {
+            throw new ZipException("End of central directory not found");
+        }
+
+        long cdEnd = eocd;
+        long cdSize = u32(buf, eocd + 12);
+        long cdOffset = u32(buf, eocd + 16);
+        if (u16(buf, eocd + 10) == 0xFFFF || cdSize == ZIP64_MAGIC || cdOffset == ZIP64_MAGIC)
+        {
+            int locator = eocd - ZIP64_LOCATOR_SIZE;
+            if (locator >= 0 && buf.getInt(locator) == ZIP64_LOCATOR_SIG)
+            {
+                long zip64Eocd = buf.getLong(locator + 8);
+                if (zip64Eocd < 0 || zip64Eocd > locator || buf.getInt((int) zip64Eocd) != ZIP64_EOCD_SIG)
+                {
+                    throw new ZipException("Invalid ZIP64 end of central directory");
+                }
+                cdEnd = zip64Eocd;
+                cdSize = buf.getLong((int) zip64Eocd + 40);
+                cdOffset = buf.getLong((int) zip64Eocd + 48);
+            }
+        }
+
+        // Offsets are relative to the start of the ZIP data, which differs from the file start if data is prepended
+        long cdStart = cdEnd - cdSize;
+        long base = cdStart - cdOffset;
+        if (cdStart < 0 || base < 0)
+        {
+            throw new ZipException("Invalid central directory location");
+        }
+
+        List<String> entryNames = new ArrayList<>();
+        List<long[]> entryData = new ArrayList<>();
+        int pos = (int) cdStart;
+        while (pos + CEN_SIZE <= cdEnd && buf.getInt(pos) == CEN_SIG)
+        {
+            int flags = u16(buf, pos + 8);
+            int method = u16(buf, pos + 10);
+            long crc = u32(buf, pos + 16);
+            long compressedSize = u32(buf, pos + 20);
+            long size = u32(buf, pos + 24);
+            int nameLen = u16(buf, pos + 28);
+            int extraLen = u16(buf, pos + 30);
+            int commentLen = u16(buf, pos + 32);
+            long offset = u32(buf, pos + 42);
+
+            byte[] nameBytes = new byte[nameLen];
+            buf.get(pos + CEN_SIZE, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            int extra = pos + CEN_SIZE + nameLen;
+            int extraEnd = extra + extraLen;
+            while (extra + 4 <= extraEnd)
+            {
+                int id = u16(buf, extra);
+                int fieldSize = u16(buf, extra + 2);
+                if (id == ZIP64_EXTRA_ID)
+                {
+                    int field = extra + 4;
+                    if (size == ZIP64_MAGIC) { size = buf.getLong(field); field += 8; }
+                    if (compressedSize == ZIP64_MAGIC) { compressedSize = buf.getLong(field); field += 8; }
+                    if (offset == ZIP64_MAGIC) { offset = buf.getLong(field); }
+                    break;
+                }
+                extra += 4 + fieldSize;
+            }
+
+            pos = extraEnd + commentLen;
+
+            if (name.endsWith("/"))
+            {
+                continue;
+            }
+            if ((flags & FLAG_ENCRYPTED) != 0)
+            {
+                throw new ZipException("Encrypted entry '" + name + "' is not supported");
+            }
+
+            offset += base;
+            if (offset + LOC_SIZE > buf.limit() || offset + compressedSize > buf.limit())
+            {
+                throw new ZipException("Entry '" + name + "' exceeds the archive bounds");
+            }
+
+            entryNames.add(ModArchive.normalize(name));
+            entryData.add(new long[] { offset, compressedSize, size, crc, method });
+        }
+
+        Integer[] order = new Integer[entryNames.size()];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(entryNames::get));
+
+        String[] names = new String[order.length];
+        int[] offsets = new int[order.length];
+        int[] compressedSizes = new int[order.length];
+        long[] sizes = new long[order.length];
+        int[] crcs = new int[order.length];
+        short[] methods = new short[order.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            long[] entry = entryData.get(order[i]);
+            names[i] = entryNames.get(order[i]);
+            offsets[i] = (int) entry[0];
+            compressedSizes[i] = (int) entry[1];
+            sizes[i] = entry[2];
+            crcs[i] = (int) entry[3];
+            methods[i] = (short) entry[4];
+        }
+
+        return new ZipArchive(buf, names, offsets, compressedSizes, sizes, crcs, methods);
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buf)
+    {
+        int min = Math.max(0, buf.limit() - EOCD_SIZE - MAX_COMMENT_SIZE);
+        for (int pos = buf.limit() - EOCD_SIZE; pos >= min; pos--)
+        {
+            if (buf.getInt(pos) == EOCD_SIG)
+            {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    // Releases the mapping and its file handle right away instead of when the buffer is garbage collected, which
+    // otherwise keeps hundreds of mod JARs mapped and prevents deleting or replacing them on Windows
+    private static void unmap(MappedByteBuffer buffer)
+    {
+        if (UNMAPPER == null)
+        {
+            return;
+        }
+
+        try
+        {
+            UNMAPPER.invokeExact((ByteBuffer) buffer);
+        }
+        catch (Throwable t)
+        {
+            throw new IllegalStateException("Failed to unmap archive", t);
+        }
+    }
+
+    private static MethodHandle findUnmapper()
+    {
+        try
+        {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            MethodHandle cleaner = MethodHandles.lookup().findVirtual(
+                    unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class)
+            );
+            return cleaner.bindTo(field.get(null));
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            // Fall back to releasing the mappings on garbage collection
+            return null;
+        }
+    }
+
+    private static int u16(ByteBuffer buf, int pos)
+    {
+        return buf.getShort(pos) & 0xFFFF;
+    }
+
+    private static long u32(ByteBuffer buf, int pos)
+    {
+        return buf.getInt(pos) & 0xFFFFFFFFL;
+    }
+
+
+
+    private static final class ByteBufferInputStream extends InputStream
+    {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!buffer.hasRemaining())
+            {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, len);
+            return len;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
+
+    private static final class EntryInflaterInputStream extends InflaterInputStream
+    {
+        private boolean eof = false;
+        private boolean closed = false;
+
+        private EntryInflaterInputStream(InputStream stream)
+        {
+            super(stream, new Inflater(true), 8192);
+        }
+
+        @Override
+        protected void fill() throws IOException
+        {
+            if (eof)
+            {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1)
+            {
+                // The inflater may require an additional dummy byte when using the "nowrap" mode
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (!closed)
+            {
+                closed = true;
+                super.close();
+                inf.end();
+            }
+        }
+    }
+}
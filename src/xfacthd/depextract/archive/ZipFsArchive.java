@@ -0,0 +1,86 @@
+package xfacthd.depextract.archive;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Archive backed by the JDK's zip file system, kept as a fallback for the ZipArchive
+final class ZipFsArchive implements ModArchive
+{
+    private final FileSystem jarFs;
+    private final long size;
+
+    private ZipFsArchive(FileSystem jarFs, long size)
+    {
+        this.jarFs = jarFs;
+        this.size = size;
+    }
+
+    @Override
+    public boolean exists(String name)
+    {
+        return Files.exists(jarFs.getPath(ModArchive.normalize(name)));
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException
+    {
+        return Files.newInputStream(jarFs.getPath(ModArchive.normalize(name)));
+    }
+
+    @Override
+    public byte[] read(String name) throws IOException
+    {
+        return Files.readAllBytes(jarFs.getPath(ModArchive.normalize(name)));
+    }
+
+    @Override
+    public List<String> entries() throws IOException
+    {
+        try (Stream<Path> stream = Files.walk(jarFs.getPath("/")))
+        {
+            return stream.filter(Files::isRegularFile)
+                    .map(path -> ModArchive.normalize(path.toString()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public ModArchive openNested(String name) throws IOException
+    {
+        Path path = jarFs.getPath(ModArchive.normalize(name));
+        return new ZipFsArchive(FileSystems.newFileSystem(path), Files.size(path));
+    }
+
+    @Override
+    public long size()
+    {
+        return size;
+    }
+
+    @Override
+    public String fingerprint(String name) throws IOException
+    {
+        Path path = jarFs.getPath(ModArchive.normalize(name));
+        return Long.toHexString((Long) Files.getAttribute(path, "zip:crc")) + ":" + Files.size(path);
+    }
+
+    @Override
+    public int crc(String name) throws IOException
+    {
+        return ((Long) Files.getAttribute(jarFs.getPath(ModArchive.normalize(name)), "zip:crc")).intValue();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        jarFs.close();
+    }
+
+    static ZipFsArchive open(Path file) throws IOException
+    {
+        return new ZipFsArchive(FileSystems.newFileSystem(file), Files.size(file));
+    }
+}
@@ -0,0 +1,38 @@
+package xfacthd.depextract.data.classfinder;
+
+import javax.annotation.Nullable;
+
+// A field or method searched for by the ClassFinder, matches every member of the given name if no descriptor is given
+public record MemberTarget(String owner, String name, @Nullable String desc)
+{
+    public boolean matches(String memberName, String memberDesc)
+    {
+        return name.equals(memberName) && (desc == null || desc.equals(memberDesc));
+    }
+
+    @Override
+    public String toString()
+    {
+        return owner + "#" + name + (desc != null ? desc : "");
+    }
+
+    // Parses a target like "net.minecraft.Foo#bar(I)V" or "net/minecraft/Foo#bar"
+    public static MemberTarget parse(String target)
+    {
+        int sep = target.indexOf('#');
+        String owner = target.substring(0, sep).replace('.', '/');
+        String member = target.substring(sep + 1);
+        int descStart = member.indexOf('(');
+        if (owner.isEmpty() || member.isEmpty() || descStart == 0)
+        {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid member target '%s', expected '<class>#<name>' or '<class>#<name><descriptor>'", target
+            ));
+        }
+        if (descStart == -1)
+        {
+            return new MemberTarget(owner, member, null);
+        }
+        return new MemberTarget(owner, member.substring(0, descStart), member.substring(descStart));
+    }
+}
@@ -0,0 +1,5 @@
+package xfacthd.depextract.data.classhierarchy;
+
+// The supertypes of the classes declared in a single JAR. Each class is stored in the types array as the index of its
+// name, the index of its super class name or -1, the amount of interfaces and the index of each interface name
+public record ClassHierarchySegment(String[] names, int[] types) { }
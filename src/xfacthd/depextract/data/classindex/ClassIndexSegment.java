@@ -0,0 +1,13 @@
+package xfacthd.depextract.data.classindex;
+
+import javax.annotation.Nullable;
+
+// The references made by the classes of a single JAR. The source identifies the mod JAR the segment was built from and
+// is only set for JARs which aren't JiJed, the JAR's size and modification time are taken when the index is written as
+// the segment may be reused from the scan cache. Each reference is stored as three consecutive values in the references
+// array: the index of the referenced class or member name, the index of the referencing class name and the ID of the
+// reference kind
+public record ClassIndexSegment(@Nullable String source, String[] names, int[] references)
+{
+    public int referenceCount() { return references.length / 3; }
+}
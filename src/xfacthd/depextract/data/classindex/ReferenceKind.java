@@ -0,0 +1,23 @@
+package xfacthd.depextract.data.classindex;
+
+import java.util.Locale;
+
+// The part of a class a reference stored in the class index is made by
+public enum ReferenceKind
+{
+    SUPER_TYPE,
+    ANNOTATION,
+    FIELD_TYPE,
+    METHOD_SIGNATURE,
+    EXCEPTION,
+    LOCAL_VARIABLE,
+    INSTRUCTION;
+
+    private static final ReferenceKind[] VALUES = values();
+
+    private final String displayName = name().toLowerCase(Locale.ROOT).replace('_', ' ');
+
+    public String displayName() { return displayName; }
+
+    public static ReferenceKind byId(int id) { return VALUES[id]; }
+}
@@ -0,0 +1,28 @@
+package xfacthd.depextract.data.duplicate;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+
+// The class entries of a single JAR. The package and simple class names are each joined with line breaks into a single
+// string, the class at index i is located in the package at index classPackages[i] and has the CRC-32 crcs[i]. The
+// source is the full path of the JAR, the artifact identifies a JiJed JAR independently of its version and is null for
+// JARs which aren't JiJed
+public record ClassEntrySegment(
+        Path source, @Nullable String artifact, String packages, String classes, int[] classPackages, int[] crcs
+)
+{
+    public int classCount() { return crcs.length; }
+
+    public int packageCount()
+    {
+        int count = 1;
+        for (int i = 0; i < packages.length(); i++)
+        {
+            if (packages.charAt(i) == '\n')
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+}
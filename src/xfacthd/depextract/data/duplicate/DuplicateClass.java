@@ -0,0 +1,6 @@
+package xfacthd.depextract.data.duplicate;
+
+import java.util.List;
+
+// A class shipped by multiple JARs, identical if the CRC-32 of the class is the same in all of them
+public record DuplicateClass(String className, List<String> jars, boolean identical) { }
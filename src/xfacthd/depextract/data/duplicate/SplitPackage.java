@@ -0,0 +1,6 @@
+package xfacthd.depextract.data.duplicate;
+
+import java.util.Map;
+
+// A package containing classes of multiple JARs with the amount of classes per JAR
+public record SplitPackage(String packageName, Map<String, Integer> classesPerJar) { }
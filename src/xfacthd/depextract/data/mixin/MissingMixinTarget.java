@@ -0,0 +1,6 @@
+package xfacthd.depextract.data.mixin;
+
+public record MissingMixinTarget(String fileName, String mixin, String target, String reason)
+{
+
+}
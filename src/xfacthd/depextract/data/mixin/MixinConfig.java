@@ -2,32 +2,35 @@ package xfacthd.depextract.data.mixin;
 
 import com.google.gson.*;
 import xfacthd.depextract.Main;
+import xfacthd.depextract.util.JarContext;
 import xfacthd.depextract.util.Utils;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.*;
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.stream.StreamSupport;
 
 public record MixinConfig(
         String name, String compatLevel, String plugin,
-        List<MixinEntry> mixins, List<MixinEntry> clientMixins, List<MixinEntry> serverMixins,
         List<Mixin> resolvedMixins, List<Mixin> resolvedClientMixins, List<Mixin> resolvedServerMixins,
         List<Mixin> resolvedMixinsNoAccessor, List<Mixin> resolvedClientMixinsNoAccessor, List<Mixin> resolvedServerMixinsNoAccessor
 )
 {
     private MixinConfig(
-            String name, String compatLevel, String plugin, List<MixinEntry> mixins,
-            List<MixinEntry> clientMixins, List<MixinEntry> serverMixins
+            String name, String compatLevel, String plugin, List<Mixin> resolvedMixins,
+            List<Mixin> resolvedClientMixins, List<Mixin> resolvedServerMixins
     )
     {
-        this(name, compatLevel, plugin, mixins, clientMixins, serverMixins, new ArrayList<>(), new ArrayList<>(),
-                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()
+        this(name, compatLevel, plugin, resolvedMixins, resolvedClientMixins, resolvedServerMixins, new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>()
         );
     }
 
+    public MixinConfig copy()
+    {
+        return new MixinConfig(name, compatLevel, plugin, resolvedMixins, resolvedClientMixins, resolvedServerMixins);
+    }
+
     public void filterAccessors()
     {
         resolvedMixins.stream().filter(mixin -> !mixin.isAccessor()).forEach(resolvedMixinsNoAccessor::add);
@@ -50,7 +53,7 @@ public record MixinConfig(
         return filterAccessors ? resolvedServerMixinsNoAccessor : resolvedServerMixins;
     }
 
-    public int mixinCount() { return mixins.size() + clientMixins.size() + serverMixins.size(); }
+    public int mixinCount() { return resolvedMixins.size() + resolvedClientMixins.size() + resolvedServerMixins.size(); }
 
     public List<Mixin> allMixins()
     {
@@ -63,7 +66,8 @@ public record MixinConfig(
 
 
 
-    public static MixinConfig fromJson(String fileName, String configName, FileSystem modJar, JsonObject obj)
+    // Mixin classes are analysed while the mod JAR is open, only the resolved Mixins are kept
+    public static MixinConfig fromJson(String fileName, String configName, JarContext modJar, JsonObject obj, MixinAnalyser analyser)
     {
         String mixinPackage = obj.has("package") ? obj.get("package").getAsString() : null;
         if (mixinPackage == null)
@@ -71,25 +75,22 @@ public record MixinConfig(
             Main.LOG.warning("Mixin config '%s' in mod JAR '%s' does not declare a Mixin package", configName, fileName);
         }
 
-        List<MixinEntry> mixins = new ArrayList<>();
+        List<Mixin> mixins = List.of();
         if (obj.has("mixins"))
         {
-            JsonArray mixinArr = obj.getAsJsonArray("mixins");
-            streamDistinctMixins(mixinArr, entry -> extractMixin(fileName, mixins, modJar, mixinPackage, entry));
+            mixins = extractMixins(fileName, modJar, mixinPackage, obj.getAsJsonArray("mixins"), analyser);
         }
 
-        List<MixinEntry> clientMixins = new ArrayList<>();
+        List<Mixin> clientMixins = List.of();
         if (obj.has("client"))
         {
-            JsonArray mixinArr = obj.getAsJsonArray("client");
-            streamDistinctMixins(mixinArr, entry -> extractMixin(fileName, clientMixins, modJar, mixinPackage, entry));
+            clientMixins = extractMixins(fileName, modJar, mixinPackage, obj.getAsJsonArray("client"), analyser);
         }
 
-        List<MixinEntry> serverMixins = new ArrayList<>();
+        List<Mixin> serverMixins = List.of();
         if (obj.has("server"))
         {
-            JsonArray mixinArr = obj.getAsJsonArray("server");
-            streamDistinctMixins(mixinArr, entry -> extractMixin(fileName, serverMixins, modJar, mixinPackage, entry));
+            serverMixins = extractMixins(fileName, modJar, mixinPackage, obj.getAsJsonArray("server"), analyser);
         }
 
         return new MixinConfig(
@@ -102,49 +103,58 @@ public record MixinConfig(
         );
     }
 
-    private static void streamDistinctMixins(JsonArray mixins, Consumer<JsonElement> consumer)
+    // The classes of a list are read before any of them is analysed, allowing the analyser to process them in parallel
+    private static List<Mixin> extractMixins(
+            String fileName, JarContext modJar, String mixinPackage, JsonArray mixinArr, MixinAnalyser analyser
+    )
     {
+        List<MixinClass> classes = new ArrayList<>();
         // Guard against Mixin configs listing a Mixin multiple times
-        StreamSupport.stream(mixins.spliterator(), false).distinct().forEach(consumer);
-    }
-
-    private static void extractMixin(String fileName, List<MixinEntry> mixins, FileSystem modJar, String mixinPackage, JsonElement entry)
-    {
-        if (!entry.isJsonNull())
+        StreamSupport.stream(mixinArr.spliterator(), false).distinct().forEach(entry ->
         {
-            String classPath = entry.getAsString();
-            String fullPath = mixinPackage == null ? classPath : (mixinPackage + "." + classPath);
-
-            mixins.add(new MixinEntry(
-                    Utils.removePackage(classPath),
-                    fullPath,
-                    extractMixinClass(fileName, modJar, fullPath)
-            ));
-        }
+            if (!entry.isJsonNull())
+            {
+                String classPath = entry.getAsString();
+                String fullPath = mixinPackage == null ? classPath : (mixinPackage + "." + classPath);
+                classes.add(new MixinClass(
+                        Utils.removePackage(classPath),
+                        fullPath,
+                        extractMixinClass(fileName, modJar, fullPath)
+                ));
+            }
+        });
+        return classes.isEmpty() ? List.of() : analyser.analyse(classes);
     }
 
-    private static final byte[] EMPTY_ARRAY = new byte[0];
-
-    private static byte[] extractMixinClass(String fileName, FileSystem modJar, String classPath)
+    private static byte[] extractMixinClass(String fileName, JarContext modJar, String classPath)
     {
-        Path entry = modJar.getPath(classPath.replace('.', '/') + ".class");
-        if (!Files.exists(entry))
+        String entry = classPath.replace('.', '/') + ".class";
+        if (!modJar.exists(entry))
         {
             Main.LOG.error("Mixin class '%s' is missing from mod JAR '%s'", classPath, fileName);
-            return EMPTY_ARRAY;
+            return null;
         }
 
         try
         {
-            InputStream stream = Files.newInputStream(entry);
-            byte[] result = stream.readAllBytes();
-            stream.close();
-            return result;
+            return modJar.read(entry);
         }
         catch (IOException e)
         {
             Main.LOG.error("Failed to read Mixin class '%s' from mod JAR '%s'", classPath, fileName, e);
-            return EMPTY_ARRAY;
+            return null;
         }
     }
+
+
+
+    // The class file is null if it couldn't be read
+    public record MixinClass(String name, String classPath, @Nullable byte[] classFile) { }
+
+    @FunctionalInterface
+    public interface MixinAnalyser
+    {
+        // Returns the resolved Mixins in the order of the given classes
+        List<Mixin> analyse(List<MixinClass> classes);
+    }
 }
@@ -0,0 +1,8 @@
+package xfacthd.depextract.data.mixin;
+
+import java.util.List;
+
+public record MixinConflict(boolean hard, String targetClass, String targetMethod, String injectionPoint, List<MixinInjectionSite> sites, int modCount)
+{
+
+}
@@ -0,0 +1,203 @@
+package xfacthd.depextract.data.mixin;
+
+import xfacthd.depextract.util.Descriptor;
+import xfacthd.depextract.util.Utils;
+
+import java.util.*;
+
+// Indexes the injections of all Mixins by target class, target method and injection point to find the places where
+// Mixins of different mods touch the same code. Overwrites and Redirects replace the code other injections rely on and
+// are reported as hard conflicts, other injectors stacked on the same injection point as soft conflicts. Injects only
+// add code and are only reported when they overlap with a hard conflict
+public final class MixinConflictIndex
+{
+    // Parameters of an injection point which select the instruction, the shift and ordinal are ignored on purpose
+    private static final List<String> POINT_PARAMS = List.of("target", "string", "opcode", "array_op", "constants");
+    private static final String OVERWRITE_POINT = "Entire method";
+    private static final String UNKNOWN_POINT = "Unknown";
+
+    // Selectors don't need to specify a descriptor, the methods are therefore only split by descriptor once all
+    // injections are known
+    private final Map<MethodKey, List<Entry>> injectionsPerMethod = new HashMap<>();
+    private int injectionCount = 0;
+
+    public int injectionCount() { return injectionCount; }
+
+    public void add(String fileName, Mixin mixin)
+    {
+        for (MixinInjection injection : mixin.injections())
+        {
+            if (injection.isAccessor())
+            {
+                continue;
+            }
+
+            injectionCount++;
+            MixinInjectionSite site = new MixinInjectionSite(fileName, mixin.name(), injection.type(), injection.methodName());
+            if (injection.type() == MixinInjectionType.OVERWRITE)
+            {
+                // An Overwrite targets the method with the same name and descriptor as the handler
+                for (MixinTarget target : mixin.targets())
+                {
+                    addEntry(toClassName(target.qualifiedName()), injection.methodName(), injection.methodDesc(), OVERWRITE_POINT, site);
+                }
+                continue;
+            }
+
+            List<String> selectors = injection.target().get("method");
+            List<String> points = getInjectionPoints(injection);
+            for (String selector : selectors)
+            {
+                Descriptor desc = Utils.splitMethodDescriptor(selector, null);
+                for (String point : points)
+                {
+                    if (desc.clazz() != null)
+                    {
+                        addEntry(toClassName(desc.clazz()), desc.method(), desc.descriptor(), point, site);
+                        continue;
+                    }
+
+                    for (MixinTarget target : mixin.targets())
+                    {
+                        addEntry(toClassName(target.qualifiedName()), desc.method(), desc.descriptor(), point, site);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addEntry(String className, String methodName, String methodDesc, String point, MixinInjectionSite site)
+    {
+        injectionsPerMethod.computeIfAbsent(new MethodKey(className, methodName), $ -> new ArrayList<>())
+                .add(new Entry(methodDesc, point, site));
+    }
+
+    // Returns the conflicts with hard conflicts first, followed by the ones involving the most mods
+    public List<MixinConflict> findConflicts()
+    {
+        List<MixinConflict> conflicts = new ArrayList<>();
+        injectionsPerMethod.forEach((key, entries) ->
+        {
+            if (countMods(entries) < 2)
+            {
+                return;
+            }
+
+            // A selector without a descriptor matches all overloads, the descriptors can only be told apart if every
+            // selector specifies one
+            if (entries.stream().allMatch(entry -> entry.methodDesc() != null))
+            {
+                Map<String, List<Entry>> entriesPerDesc = new HashMap<>();
+                entries.forEach(entry -> entriesPerDesc.computeIfAbsent(entry.methodDesc(), $ -> new ArrayList<>()).add(entry));
+                entriesPerDesc.forEach((desc, descEntries) -> findConflicts(key.className(), key.methodName() + desc, descEntries, conflicts));
+            }
+            else
+            {
+                findConflicts(key.className(), key.methodName(), entries, conflicts);
+            }
+        });
+
+        conflicts.sort(Comparator.comparing((MixinConflict conflict) -> !conflict.hard())
+                .thenComparing(MixinConflict::modCount, Comparator.reverseOrder())
+                .thenComparing(MixinConflict::targetClass)
+                .thenComparing(MixinConflict::targetMethod)
+                .thenComparing(MixinConflict::injectionPoint)
+        );
+        return conflicts;
+    }
+
+    private static void findConflicts(String className, String method, List<Entry> entries, List<MixinConflict> conflicts)
+    {
+        int modCount = countMods(entries);
+        if (modCount < 2)
+        {
+            return;
+        }
+
+        // Every other injection into an overwritten method depends on the code being replaced
+        if (entries.stream().anyMatch(entry -> entry.site().type() == MixinInjectionType.OVERWRITE))
+        {
+            conflicts.add(new MixinConflict(true, className, method, OVERWRITE_POINT, sortSites(entries), modCount));
+            return;
+        }
+
+        Map<String, List<Entry>> entriesPerPoint = new HashMap<>();
+        entries.forEach(entry -> entriesPerPoint.computeIfAbsent(entry.point(), $ -> new ArrayList<>()).add(entry));
+        entriesPerPoint.forEach((point, pointEntries) ->
+        {
+            int pointModCount = countMods(pointEntries);
+            if (pointModCount < 2)
+            {
+                return;
+            }
+
+            boolean hard = pointEntries.stream().anyMatch(entry -> entry.site().type() == MixinInjectionType.REDIRECT);
+            if (hard || pointEntries.stream().anyMatch(entry -> entry.site().type() != MixinInjectionType.INJECT))
+            {
+                conflicts.add(new MixinConflict(hard, className, method, point, sortSites(pointEntries), pointModCount));
+            }
+        });
+    }
+
+    private static int countMods(List<Entry> entries)
+    {
+        return (int) entries.stream().map(entry -> entry.site().fileName()).distinct().count();
+    }
+
+    private static List<MixinInjectionSite> sortSites(List<Entry> entries)
+    {
+        return entries.stream()
+                .map(Entry::site)
+                .distinct()
+                .sorted(Comparator.comparing(MixinInjectionSite::fileName, String::compareToIgnoreCase)
+                        .thenComparing(MixinInjectionSite::mixin)
+                        .thenComparing(MixinInjectionSite::handler)
+                )
+                .toList();
+    }
+
+    private static List<String> getInjectionPoints(MixinInjection injection)
+    {
+        if (injection.type() == MixinInjectionType.MODIFY_CONSTANT)
+        {
+            return List.of("CONSTANT " + injection.target().get("constant"));
+        }
+
+        List<MixinAtDescriptor> descriptors = injection.target().get("target");
+        if (descriptors == null || descriptors.isEmpty())
+        {
+            return List.of(UNKNOWN_POINT);
+        }
+
+        List<String> points = new ArrayList<>(descriptors.size());
+        for (MixinAtDescriptor desc : descriptors)
+        {
+            StringBuilder point = new StringBuilder(desc.type().name());
+            for (String param : POINT_PARAMS)
+            {
+                String value = desc.params().get(param);
+                if (value != null && !value.isEmpty())
+                {
+                    point.append(' ').append(value);
+                }
+            }
+            points.add(point.toString());
+        }
+        return points;
+    }
+
+    private static String toClassName(String name)
+    {
+        if (name.startsWith("L") && name.indexOf('/') != -1)
+        {
+            name = name.substring(1);
+        }
+        return name.replace('/', '.');
+    }
+
+
+
+    private record MethodKey(String className, String methodName) { }
+
+    private record Entry(String methodDesc, String point, MixinInjectionSite site) { }
+}
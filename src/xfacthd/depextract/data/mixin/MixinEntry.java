@@ -1,6 +0,0 @@
-package xfacthd.depextract.data.mixin;
-
-public record MixinEntry(String name, String classPath, byte[] classFile)
-{
-
-}
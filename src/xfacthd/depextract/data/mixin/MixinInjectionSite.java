@@ -0,0 +1,6 @@
+package xfacthd.depextract.data.mixin;
+
+public record MixinInjectionSite(String fileName, String mixin, MixinInjectionType type, String handler)
+{
+
+}
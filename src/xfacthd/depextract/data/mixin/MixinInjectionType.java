@@ -2,7 +2,6 @@ package xfacthd.depextract.data.mixin;
 
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AnnotationNode;
-import org.objectweb.asm.tree.MethodNode;
 import xfacthd.depextract.html.Html;
 import xfacthd.depextract.html.HtmlWriter;
 import xfacthd.depextract.util.*;
@@ -17,10 +16,10 @@ public enum MixinInjectionType
         private final List<String> prefixes = List.of("get", "set", "is");
 
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             Optional<String> annoTarget = Utils.findAnnotationValue(anno.values, "value", String.class);
-            String target = annoTarget.orElseGet(() -> stripPrefix(mth.name, prefixes));
+            String target = annoTarget.orElseGet(() -> stripPrefix(methodName, prefixes));
             return new MixinTargetDescriptor(Map.of("field", target));
         }
 
@@ -39,13 +38,13 @@ public enum MixinInjectionType
         private final List<String> prefixes = List.of("call", "invoke");
 
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             Optional<String> annoTarget = Utils.findAnnotationValue(anno.values, "value", String.class);
-            String target = annoTarget.orElseGet(() -> stripPrefix(mth.name, prefixes));
+            String target = annoTarget.orElseGet(() -> stripPrefix(methodName, prefixes));
             return new MixinTargetDescriptor(Map.of(
                     "method", target,
-                    "desc", mth.desc
+                    "desc", methodDesc
             ));
         }
 
@@ -64,7 +63,7 @@ public enum MixinInjectionType
     INJECT("Inject")
     {
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             MixinTargetDescriptor desc = new MixinTargetDescriptor();
 
@@ -103,7 +102,7 @@ public enum MixinInjectionType
     REDIRECT("Redirect")
     {
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             MixinTargetDescriptor desc = new MixinTargetDescriptor();
 
@@ -125,7 +124,7 @@ public enum MixinInjectionType
     MODIFY_ARG("ModifyArg")
     {
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             MixinTargetDescriptor desc = new MixinTargetDescriptor();
 
@@ -155,7 +154,7 @@ public enum MixinInjectionType
     MODIFY_ARGS("ModifyArgs")
     {
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             MixinTargetDescriptor desc = new MixinTargetDescriptor();
 
@@ -177,7 +176,7 @@ public enum MixinInjectionType
     MODIFY_CONSTANT("ModifyConstant")
     {
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             MixinTargetDescriptor desc = new MixinTargetDescriptor();
 
@@ -249,7 +248,7 @@ public enum MixinInjectionType
     MODIFY_VARIABLE("ModifyVariable")
     {
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             MixinTargetDescriptor desc = new MixinTargetDescriptor();
 
@@ -288,7 +287,7 @@ public enum MixinInjectionType
     OVERWRITE("Overwrite")
     {
         @Override
-        public MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno)
+        public MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno)
         {
             return new MixinTargetDescriptor();
         }
@@ -304,7 +303,7 @@ public enum MixinInjectionType
         this.name = name;
     }
 
-    public abstract MixinTargetDescriptor parseAnnotationData(MethodNode mth, AnnotationNode anno);
+    public abstract MixinTargetDescriptor parseAnnotationData(String methodName, String methodDesc, AnnotationNode anno);
 
     public abstract void printTarget(HtmlWriter writer, MixinTargetDescriptor target);
 
@@ -322,8 +321,9 @@ public enum MixinInjectionType
         {
             if (value.startsWith(pre))
             {
-                int len = pre.length();
-                return Utils.toFirstCharLower(value.substring(len));
+                // Mixin keeps all-uppercase names like those of constants unchanged
+                String name = value.substring(pre.length());
+                return name.equals(name.toUpperCase(Locale.ROOT)) ? name : Utils.toFirstCharLower(name);
             }
         }
         return value;
@@ -1,9 +1,10 @@
 package xfacthd.depextract.extractor;
 
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
 import joptsimple.*;
 import org.apache.commons.lang3.mutable.MutableObject;
 import xfacthd.depextract.Main;
-import xfacthd.depextract.data.FileEntry;
 import xfacthd.depextract.data.accesstransformer.AccessTransformer;
 import xfacthd.depextract.data.accesstransformer.ChartType;
 import xfacthd.depextract.html.Css;
@@ -11,24 +12,36 @@ import xfacthd.depextract.html.Html;
 import xfacthd.depextract.util.*;
 
 import java.io.*;
+import java.lang.reflect.Type;
 import java.nio.file.*;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class AccessTransformerExtractor extends DataExtractor
+public class AccessTransformerExtractor extends DataExtractor<List<AccessTransformer>>
 {
     private static final String AT_RESULT_FILE_NAME = "accesstransformers.html";
+    private static final String AT_ENTRY_NAME = "META-INF/accesstransformer.cfg";
+    private static final EntryMatcher ENTRY_MATCHER = EntryMatcher.of(AT_ENTRY_NAME);
     private static final String CHART_JS_SRC = "https://cdnjs.cloudflare.com/ajax/libs/Chart.js/4.3.2/chart.umd.js";
     private static final String CHART_JS_INTEGRITY = "sha512-KIq/d78rZMlPa/mMe2W/QkRgg+l0/GAAu4mGBacU0OQyPV/7EPoGQChDb269GigVoPQit5CqbNRFbgTjXHHrQg==";
+    private static final Type CACHE_TYPE = new TypeToken<List<AccessTransformer>>() { }.getType();
 
+    private final MemberIndexProvider memberIndex;
     private final List<String> flaggedATs = new ArrayList<>();
     private final Map<String, List<AccessTransformer>> atEntries = new HashMap<>();
-    private final Map<AccessTransformer, Integer> atCounts = new HashMap<>();
+    private final Map<AccessTransformer, Integer> atCounts = new LinkedHashMap<>();
+    private final Set<AccessTransformer> unresolvedATs = new HashSet<>();
     private OptionSpec<Boolean> extractATsOpt = null;
     private OptionSpec<String> flaggedATsOpt = null;
     private OptionSpec<ChartType.Compound> createGraphOpt = null;
     private boolean active = false;
     private ChartType.Compound createGraph = ChartType.Compound.NONE;
+    private boolean validated = false;
+
+    public AccessTransformerExtractor(MemberIndexProvider memberIndex)
+    {
+        this.memberIndex = memberIndex;
+    }
 
     @Override
     public void registerOptions(OptionParser parser)
@@ -75,12 +88,13 @@ public class AccessTransformerExtractor extends DataExtractor
     public String name() { return "AccessTransformers"; }
 
     @Override
-    public void acceptFile(String fileName, FileSystem modJar, boolean jij, FileEntry modInfo) throws IOException
-    {
-        Path atEntry = modJar.getPath("META-INF/accesstransformer.cfg");
-        if (!Files.exists(atEntry)) { return; }
+    public EntryMatcher entryMatcher() { return ENTRY_MATCHER; }
 
-        InputStream atStream = Files.newInputStream(atEntry);
+    @Override
+    public List<AccessTransformer> acceptFile(JarContext modJar, List<String> entries) throws IOException
+    {
+        String fileName = modJar.fileName();
+        InputStream atStream = modJar.open(AT_ENTRY_NAME);
         BufferedReader reader = new BufferedReader(new InputStreamReader(atStream));
 
         List<AccessTransformer> ats = new ArrayList<>();
@@ -103,10 +117,28 @@ public class AccessTransformerExtractor extends DataExtractor
             Main.LOG.error("Encountered an error while parsing AccessTransformers for mod JAR '%s'!", fileName, e);
         }
 
-        if (!ats.isEmpty())
-        {
-            atEntries.put(fileName, ats);
-        }
+        return ats.isEmpty() ? null : ats;
+    }
+
+    @Override
+    public void acceptResult(String fileName, List<AccessTransformer> result)
+    {
+        atEntries.put(fileName, result);
+    }
+
+    @Override
+    public String cacheVersion() { return String.join(",", flaggedATs); }
+
+    @Override
+    public JsonElement writeCacheEntry(List<AccessTransformer> result)
+    {
+        return ScanCache.GSON.toJsonTree(result, CACHE_TYPE);
+    }
+
+    @Override
+    public List<AccessTransformer> readCacheEntry(JsonElement json)
+    {
+        return ScanCache.GSON.fromJson(json, CACHE_TYPE);
     }
 
     @Override
@@ -120,6 +152,38 @@ public class AccessTransformerExtractor extends DataExtractor
                     .filter(createGraph::matches)
                     .forEach(e -> atCounts.compute(e, (at, i) -> i == null ? 1 : (i + 1)));
         }
+
+        MemberIndex index = memberIndex.index();
+        if (index != null)
+        {
+            validated = true;
+            atEntries.values()
+                    .stream()
+                    .flatMap(List::stream)
+                    .filter(at -> !isResolved(index, at))
+                    .forEach(unresolvedATs::add);
+            Main.LOG.info("Found %d AccessTransformer entries with missing targets", unresolvedATs.size());
+        }
+    }
+
+    // Targets outside the packages of the indexed JARs and wildcards can't be validated and are considered resolved
+    private static boolean isResolved(MemberIndex index, AccessTransformer at)
+    {
+        String targetClass = at.targetClass();
+        if (!index.covers(targetClass))
+        {
+            return true;
+        }
+        if (!index.hasClass(targetClass))
+        {
+            return false;
+        }
+        return switch (at.type())
+        {
+            case CLASS -> true;
+            case FIELD -> at.targetName().equals("*") || index.hasField(targetClass, at.targetName(), null);
+            case METHOD -> at.targetName().equals("*") || index.hasMethod(targetClass, at.targetName(), at.targetDescriptor());
+        };
     }
 
     @Override
@@ -186,6 +250,12 @@ public class AccessTransformerExtractor extends DataExtractor
                     body.print("Found");
                     Html.span(body, Html.getBoolColor(flagged == 0), Long.toString(flagged));
                     body.println("flagged AccessTransformer entries.<br>");
+                    if (validated)
+                    {
+                        body.print("Found");
+                        Html.span(body, Html.getBoolColor(unresolvedATs.isEmpty()), Integer.toString(unresolvedATs.size()));
+                        body.println("AccessTransformer entries targeting classes or members missing from the Minecraft JAR.<br>");
+                    }
 
                     String tableAttrib = "class=\"mod_table\"";
                     MutableObject<String> lastAtOwner = new MutableObject<>("");
@@ -197,6 +267,10 @@ public class AccessTransformerExtractor extends DataExtractor
                                 Html.tableHeader(row, tableAttrib, "Mod file (AT count)");
                                 Html.tableHeader(row, tableAttrib, "AccessTransformer");
                                 Html.tableHeader(row, tableAttrib, "Flagged");
+                                if (validated)
+                                {
+                                    Html.tableHeader(row, tableAttrib, "Missing target");
+                                }
                             }),
                             tbody -> atEntries.keySet().stream().sorted(String::compareToIgnoreCase).forEachOrdered(fileName ->
                             {
@@ -223,6 +297,16 @@ public class AccessTransformerExtractor extends DataExtractor
                                             Html.span(cell, String.format("style=\"color: %s;\"", Html.COLOR_RED), "X");
                                         }
                                     });
+                                    if (validated)
+                                    {
+                                        Html.element(row, "td", tableAttrib, cell ->
+                                        {
+                                            if (unresolvedATs.contains(entry))
+                                            {
+                                                Html.span(cell, String.format("style=\"color: %s;\"", Html.COLOR_RED), "X");
+                                            }
+                                        });
+                                    }
                                 }));
                             })
                     );
@@ -1,36 +1,57 @@
 package xfacthd.depextract.extractor;
 
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
 import joptsimple.*;
 import org.apache.commons.lang3.mutable.MutableObject;
-import org.objectweb.asm.*;
-import org.objectweb.asm.tree.*;
+import org.objectweb.asm.ClassReader;
 import xfacthd.depextract.Main;
-import xfacthd.depextract.data.FileEntry;
+import xfacthd.depextract.archive.ModArchive;
 import xfacthd.depextract.data.classfinder.LocatedTarget;
 import xfacthd.depextract.data.classfinder.ContainingClass;
+import xfacthd.depextract.data.classfinder.MemberTarget;
 import xfacthd.depextract.html.Css;
 import xfacthd.depextract.html.Html;
-import xfacthd.depextract.util.DataExtractor;
-import xfacthd.depextract.util.Utils;
+import xfacthd.depextract.jfr.ClassParseEvent;
+import xfacthd.depextract.util.*;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.function.Consumer;
-import java.util.stream.Stream;
+import java.util.concurrent.RecursiveTask;
 
-public class ClassFinderExtractor extends DataExtractor
+public class ClassFinderExtractor extends DataExtractor<List<ContainingClass>>
 {
     private static final String CLASSFINDER_RESULT_FILE_NAME = "classfinder.html";
+    private static final EntryMatcher ENTRY_MATCHER = EntryMatcher.of("**.class");
+    private static final EntryMatcher NO_ENTRIES = EntryMatcher.of();
+    private static final java.lang.reflect.Type CACHE_TYPE = new TypeToken<List<ContainingClass>>() { }.getType();
 
     private OptionSpec<Boolean> searchClassesOpt = null;
     private OptionSpec<String> targetClassesOpt = null;
     private OptionSpec<String> ignoredClassesOpt = null;
+    private OptionSpec<Boolean> queryIndexOpt = null;
+    private OptionSpec<Integer> splitThresholdOpt = null;
+    private final ClassIndexExtractor classIndex;
+    private final WorkerPool workerPool;
     private boolean active = false;
+    private boolean queryIndex = false;
+    private int splitThreshold = 0;
     private final Set<String> targetClasses = new HashSet<>();
+    private final Set<String> targetMembers = new HashSet<>();
+    private final Map<String, List<MemberTarget>> memberTargetsByOwner = new HashMap<>();
     private final Set<String> ignoredClasses = new HashSet<>();
+    private ClassNameMatcher targetMatcher = ClassNameMatcher.of(List.of());
+    private ConstantPoolFilter targetFilter = ConstantPoolFilter.of(List.of());
     private final Map<String, List<ContainingClass>> searchResults = new HashMap<>();
 
+    public ClassFinderExtractor(ClassIndexExtractor classIndex, WorkerPool workerPool)
+    {
+        this.classIndex = classIndex;
+        this.workerPool = workerPool;
+    }
+
     @Override
     public void registerOptions(OptionParser parser)
     {
@@ -39,7 +60,7 @@ public class ClassFinderExtractor extends DataExtractor
                 .ofType(Boolean.class)
                 .defaultsTo(false);
 
-        targetClassesOpt = parser.accepts("target_classes", "Fully qualified names of classes to be searched")
+        targetClassesOpt = parser.accepts("target_classes", "Fully qualified names of classes or members (like 'pkg.Foo#bar(I)V' or 'pkg.Foo#bar') to be searched, 'package.*' and 'package.**' match the classes in a package and its sub-packages")
                 .availableIf(searchClassesOpt)
                 .requiredIf(searchClassesOpt)
                 .withRequiredArg()
@@ -51,12 +72,26 @@ public class ClassFinderExtractor extends DataExtractor
                 .withRequiredArg()
                 .withValuesSeparatedBy(",")
                 .ofType(String.class);
+
+        queryIndexOpt = parser.accepts("query_class_index", "Search the references in the class index instead of reading the classes of each mod")
+                .availableIf(searchClassesOpt)
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(false);
+
+        splitThresholdOpt = parser.accepts("class_scan_split_threshold", "Amount of classes above which the classes of a single mod JAR are split into parallel tasks, 0 disables splitting")
+                .availableIf(searchClassesOpt)
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(2048);
     }
 
     @Override
     public void readOptions(OptionSet options)
     {
         targetClasses.clear();
+        targetMembers.clear();
+        memberTargetsByOwner.clear();
         ignoredClasses.clear();
 
         active = options.valueOf(searchClassesOpt);
@@ -64,10 +99,34 @@ public class ClassFinderExtractor extends DataExtractor
         {
             return;
         }
+        queryIndex = options.valueOf(queryIndexOpt);
+        splitThreshold = options.valueOf(splitThresholdOpt);
+        Preconditions.checkArgument(splitThreshold >= 0, "Expected a non-negative amount for argument --class_scan_split_threshold, got %s", splitThreshold);
 
-        options.valuesOf(targetClassesOpt).stream()
-                .map(ClassFinderExtractor::correctClassName)
-                .forEach(targetClasses::add);
+        for (String target : options.valuesOf(targetClassesOpt))
+        {
+            if (target.indexOf('#') != -1)
+            {
+                MemberTarget member = MemberTarget.parse(target);
+                if (targetMembers.add(member.toString()))
+                {
+                    memberTargetsByOwner.computeIfAbsent(member.owner(), $ -> new ArrayList<>()).add(member);
+                }
+            }
+            else
+            {
+                targetClasses.add(correctClassName(target));
+            }
+        }
+        targetMatcher = ClassNameMatcher.of(targetClasses.stream()
+                .map(desc -> desc.substring(1, desc.length() - 1))
+                .toList()
+        );
+        // Any reference to a class matched by a wildcard pattern contains the pattern's package and any reference to a
+        // member contains its owner
+        List<String> filterNames = new ArrayList<>(targetMatcher.literalPrefixes());
+        filterNames.addAll(memberTargetsByOwner.keySet());
+        targetFilter = ConstantPoolFilter.of(filterNames);
 
         if (options.has(ignoredClassesOpt))
         {
@@ -96,184 +155,214 @@ public class ClassFinderExtractor extends DataExtractor
     public String name() { return "ClassFinder"; }
 
     @Override
-    public void acceptFile(String fileName, FileSystem modJar, boolean jij, FileEntry modInfo) throws IOException
-    {
-        try (Stream<Path> stream = Files.walk(modJar.getPath("/")))
-        {
-            stream.filter(Files::isRegularFile)
-                    .filter(p -> p.getFileName().toString().endsWith(".class"))
-                    .forEach(p -> scanClass(fileName, p));
-        }
-    }
+    public EntryMatcher entryMatcher() { return queryIndex ? NO_ENTRIES : ENTRY_MATCHER; }
 
-    private void scanClass(String jarName, Path classPath)
+    @Override
+    public List<ContainingClass> acceptFile(JarContext modJar, List<String> entries)
     {
-        byte[] result;
-        try
+        String fileName = modJar.fileName();
+        List<ContainingClass> containingClasses;
+        if (splitThreshold > 0 && entries.size() > splitThreshold)
         {
-            InputStream stream = Files.newInputStream(classPath);
-            result = stream.readAllBytes();
-            stream.close();
+            // Large JARs are split to not leave a single thread scanning all of their classes. The tasks read from
+            // the archive directly as the JAR context is confined to this thread, their reads are accounted for here
+            ScanBuffer buffer = workerPool.invoke(new ScanTask(fileName, modJar.archive(), entries, 0, entries.size()));
+            modJar.metrics().addEntriesRead(buffer.entriesRead);
+            modJar.metrics().addBytesRead(buffer.bytesRead);
+            containingClasses = buffer.containingClasses;
         }
-        catch (IOException e)
+        else
         {
-            Main.LOG.error("Failed to read class file '%s' from mod JAR '%s'", classPath, jarName, e);
-            return;
+            containingClasses = new ArrayList<>();
+            for (String entry : entries)
+            {
+                byte[] classFile;
+                try
+                {
+                    classFile = modJar.read(entry);
+                }
+                catch (IOException e)
+                {
+                    Main.LOG.error("Failed to read class file '%s' from mod JAR '%s'", entry, fileName, e);
+                    continue;
+                }
+                scanClass(fileName, classFile, containingClasses);
+            }
         }
+        return containingClasses.isEmpty() ? null : containingClasses;
+    }
+
+    @Override
+    public void acceptResult(String fileName, List<ContainingClass> result)
+    {
+        searchResults.computeIfAbsent(fileName, $ -> new ArrayList<>()).addAll(result);
+    }
 
-        ClassReader reader = new ClassReader(result);
+    private void scanClass(String jarName, byte[] classFile, List<ContainingClass> containingClasses)
+    {
+        ClassReader reader = new ClassReader(classFile);
         String className = reader.getClassName();
         if (ignoredClasses.contains(className))
         {
             return;
         }
-
-        ClassNode clazz = new ClassNode(Opcodes.ASM9);
-        reader.accept(clazz, 0);
-
-        String path = className + " -> ";
-        ContainingClass containingClass = new ContainingClass(className);
-        Consumer<LocatedTarget> resultConsumer = containingClass.locatedTargets()::add;
-
-        Utils.forEach(clazz.visibleAnnotations, anno -> scanAnnotation(resultConsumer, path, anno));
-        Utils.forEach(clazz.invisibleAnnotations, anno -> scanAnnotation(resultConsumer, path, anno));
-        Utils.forEach(clazz.visibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, path, anno));
-        Utils.forEach(clazz.invisibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, path, anno));
-        Utils.forEach(clazz.interfaces, itf -> scanType(resultConsumer, path, Type.getType("L" + itf + ";")));
-        Utils.forEach(clazz.recordComponents, component -> scanRecordComponent(resultConsumer, path, component));
-        Utils.forEach(clazz.fields, field -> scanField(resultConsumer, path, field));
-        Utils.forEach(clazz.methods, method -> scanMethod(resultConsumer, path, method));
-        scanType(resultConsumer, path, Type.getType("L" + clazz.superName + ";"));
-
-        if (!containingClass.locatedTargets().isEmpty())
+        // Only visit the class if it can reference any target at all, which is rarely the case
+        if (!targetFilter.mayReference(reader, classFile))
         {
-            searchResults.computeIfAbsent(jarName, $ -> new ArrayList<>()).add(containingClass);
+            return;
         }
-    }
 
-    private void scanAnnotation(Consumer<LocatedTarget> resultConsumer, String path, AnnotationNode annotation)
-    {
-        scanType(resultConsumer, path + "@", Type.getType(annotation.desc));
-        if (annotation.values != null)
+        ClassParseEvent event = new ClassParseEvent();
+        event.begin();
+        ClassFinderVisitor visitor = new ClassFinderVisitor(targetMatcher, memberTargetsByOwner);
+        reader.accept(visitor, ClassReader.SKIP_FRAMES);
+        event.extractor = name();
+        event.fileName = jarName;
+        event.className = className;
+        event.size = classFile.length;
+        event.commit();
+
+        List<LocatedTarget> targets = visitor.locatedTargets();
+        if (!targets.isEmpty())
         {
-            path += "@" + annotation.desc + " -> ";
-            for (int i = 0; i < annotation.values.size(); i += 2)
-            {
-                String name = (String) annotation.values.get(i);
-                Object value = annotation.values.get(i + 1);
-                scanAnnotationValue(resultConsumer, path, name, value);
-            }
+            containingClasses.add(new ContainingClass(className, targets));
         }
     }
 
-    private void scanAnnotationValue(Consumer<LocatedTarget> resultConsumer, String path, String name, Object value)
+    @Override
+    public String cacheVersion()
     {
-        String fPath = path + name + " -> ";
-        if (value instanceof String[] arr)
-        {
-            scanType(resultConsumer, fPath, Type.getType(arr[0]));
-        }
-        else if (value instanceof AnnotationNode innerAnno)
-        {
-            scanAnnotation(resultConsumer, fPath, innerAnno);
-        }
-        else if (value instanceof Type type)
-        {
-            scanType(resultConsumer, fPath, type);
-        }
-        else if (value instanceof List<?> list)
+        // The targets are searched after all mod JARs were processed when querying the index, changing them must
+        // therefore not discard the cached results of the other extractors
+        if (queryIndex)
         {
-            list.forEach(innerValue -> scanAnnotationValue(resultConsumer, fPath, name, innerValue));
+            return "index";
         }
+        return new TreeSet<>(targetClasses) + ";" + new TreeSet<>(targetMembers) + ";" + new TreeSet<>(ignoredClasses);
     }
 
-    private void scanRecordComponent(Consumer<LocatedTarget> resultConsumer, String path, RecordComponentNode component)
+    @Override
+    public JsonElement writeCacheEntry(List<ContainingClass> result)
     {
-        String fPath = path + component.name + " -> ";
-        Utils.forEach(component.visibleAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(component.invisibleAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(component.visibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(component.invisibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        scanType(resultConsumer, fPath, Type.getType(component.descriptor));
+        return ScanCache.GSON.toJsonTree(result, CACHE_TYPE);
     }
 
-    private void scanField(Consumer<LocatedTarget> resultConsumer, String path, FieldNode field)
+    @Override
+    public List<ContainingClass> readCacheEntry(JsonElement json)
     {
-        String fPath = path + field.name + " -> ";
-        Utils.forEach(field.visibleAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(field.invisibleAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(field.visibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(field.invisibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        scanType(resultConsumer, fPath, Type.getType(field.desc));
+        return ScanCache.GSON.fromJson(json, CACHE_TYPE);
     }
 
-    private void scanMethod(Consumer<LocatedTarget> resultConsumer, String path, MethodNode method)
+    @Override
+    public void postProcessData()
     {
-        String fPath = path + method.name + "() -> ";
-        int paramCount = Type.getArgumentTypes(method.desc).length;
-        Utils.forEach(method.visibleAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(method.invisibleAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(method.visibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(method.invisibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(method.visibleParameterAnnotations, annos -> Utils.forEach(annos, (i, anno) ->
-        {
-            String pfPath = fPath + "param" + i + " -> ";
-            scanAnnotation(resultConsumer, pfPath, anno);
-        }));
-        Utils.forEach(method.invisibleParameterAnnotations, annos -> Utils.forEach(annos, (i, anno) ->
+        if (queryIndex)
         {
-            String pfPath = fPath + "param" + i + " -> ";
-            scanAnnotation(resultConsumer, pfPath, anno);
-        }));
-        Utils.forEach(method.visibleLocalVariableAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(method.invisibleLocalVariableAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(method.localVariables, var ->
-        {
-            int idx = (method.access & Opcodes.ACC_STATIC) != 0 ? var.index : (var.index - 1);
-            String type = idx < paramCount ? " (param)" : " (local var)";
-            String vfPath = fPath + var.name + type + " -> ";
-            scanType(resultConsumer, vfPath, Type.getType(var.desc));
-        });
-        Utils.forEach(method.exceptions, exc -> scanType(resultConsumer, fPath, Type.getObjectType(exc)));
-        Utils.forEach(method.tryCatchBlocks, tryCatch -> scanTryCatchBlock(resultConsumer, fPath, tryCatch));
-        scanType(resultConsumer, fPath, Type.getReturnType(method.desc));
+            searchIndex();
+        }
     }
 
-    private void scanTryCatchBlock(Consumer<LocatedTarget> resultConsumer, String path, TryCatchBlockNode tryCatch)
+    private void searchIndex()
     {
-        String fPath = path + "try...catch -> ";
-        Utils.forEach(tryCatch.visibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        Utils.forEach(tryCatch.invisibleTypeAnnotations, anno -> scanAnnotation(resultConsumer, fPath, anno));
-        if (tryCatch.type != null)
+        Path indexFile = classIndex.indexFile();
+        ClassIndex index;
+        try
         {
-            scanType(resultConsumer, fPath, Type.getObjectType(tryCatch.type));
+            index = ClassIndex.open(indexFile);
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            Main.LOG.error("Failed to open class index '%s'", indexFile, e);
+            return;
         }
-    }
 
-    private void scanType(Consumer<LocatedTarget> resultConsumer, String path, Type type)
-    {
-        if (type.getSort() == Type.ARRAY)
+        int outdated = 0;
+        for (int i = 0; i < index.fileCount(); i++)
+        {
+            if (isOutdated(index.file(i)))
+            {
+                outdated++;
+            }
+        }
+        if (outdated > 0)
+        {
+            Main.LOG.warning("Class index '%s' is outdated for %d mod JAR(s), rebuild it with --build_class_index", indexFile, outdated);
+        }
+
+        // Wildcard patterns and member targets without a descriptor match all keys starting with their literal part
+        Set<Integer> keys = new TreeSet<>();
+        for (String prefix : targetMatcher.literalPrefixes())
         {
-            scanType(resultConsumer, path + "[", type.getElementType());
+            index.forEachKeyWithPrefix(prefix, keyIdx ->
+            {
+                String key = index.key(keyIdx);
+                if (key.indexOf('#') == -1 && targetMatcher.matches(key))
+                {
+                    keys.add(keyIdx);
+                }
+            });
         }
-        else if (type.getSort() == Type.OBJECT)
+        memberTargetsByOwner.values().stream().flatMap(List::stream).forEach(member ->
         {
-            String desc = type.getDescriptor();
-            if (desc.startsWith("L"))
+            if (member.desc() != null)
             {
-                if (targetClasses.contains(desc))
+                int keyIdx = index.find(member.toString());
+                if (keyIdx != -1)
                 {
-                    resultConsumer.accept(new LocatedTarget(
-                            path.substring(0, path.length() - 4),
-                            desc.substring(1, desc.length() - 1)
-                    ));
+                    keys.add(keyIdx);
                 }
+                return;
             }
+            index.forEachKeyWithPrefix(member.toString(), keyIdx ->
+            {
+                String key = index.key(keyIdx);
+                int descStart = key.indexOf('(');
+                String name = key.substring(key.indexOf('#') + 1, descStart != -1 ? descStart : key.length());
+                if (name.equals(member.name()))
+                {
+                    keys.add(keyIdx);
+                }
+            });
+        });
+
+        Map<Integer, Map<String, ContainingClass>> classesPerFile = new TreeMap<>();
+        for (int keyIdx : keys)
+        {
+            String key = index.key(keyIdx);
+            index.forEachReference(keyIdx, (fileIdx, className, kind) ->
+            {
+                if (ignoredClasses.contains(className))
+                {
+                    return;
+                }
+                classesPerFile.computeIfAbsent(fileIdx, $ -> new TreeMap<>())
+                        .computeIfAbsent(className, ContainingClass::new)
+                        .locatedTargets()
+                        .add(new LocatedTarget(className + " -> " + kind.displayName(), key));
+            });
         }
+        classesPerFile.forEach((fileIdx, classes) -> searchResults.computeIfAbsent(
+                index.file(fileIdx).fileName(),
+                $ -> new ArrayList<>()
+        ).addAll(classes.values()));
     }
 
-    @Override
-    public void postProcessData() { }
+    private static boolean isOutdated(ClassIndex.IndexedFile file)
+    {
+        if (file.source() == null)
+        {
+            return false;
+        }
+        try
+        {
+            Path path = Path.of(file.source());
+            return Files.size(path) != file.size() || Files.getLastModifiedTime(path).toMillis() != file.modified();
+        }
+        catch (IOException e)
+        {
+            return true;
+        }
+    }
 
     @Override
     public void printResults(boolean darkMode, boolean minify, int modCount)
@@ -313,8 +402,12 @@ public class ClassFinderExtractor extends DataExtractor
                 {
                     Html.element(body, "h1", "", "ClassFinder Result");
 
-                    Html.element(body, "h3", "", "Target classes");
-                    Html.unorderedList(body, list -> targetClasses.forEach(clazz -> Html.listEntry(list, clazz)));
+                    Html.element(body, "h3", "", "Targets");
+                    Html.unorderedList(body, list ->
+                    {
+                        targetClasses.forEach(clazz -> Html.listEntry(list, clazz));
+                        targetMembers.forEach(member -> Html.listEntry(list, member));
+                    });
 
                     if (!ignoredClasses.isEmpty())
                     {
@@ -384,4 +477,75 @@ public class ClassFinderExtractor extends DataExtractor
 
         Main.LOG.info("ClassFinder display built");
     }
+
+
+
+    // Results of the classes scanned by a task, merged in entry order
+    private static final class ScanBuffer
+    {
+        private final List<ContainingClass> containingClasses = new ArrayList<>();
+        private int entriesRead = 0;
+        private long bytesRead = 0;
+
+        private ScanBuffer append(ScanBuffer other)
+        {
+            containingClasses.addAll(other.containingClasses);
+            entriesRead += other.entriesRead;
+            bytesRead += other.bytesRead;
+            return this;
+        }
+    }
+
+    // Scans a range of class entries, ranges above the split threshold are halved and the halves scanned in parallel
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private final class ScanTask extends RecursiveTask<ScanBuffer>
+    {
+        private final String jarName;
+        private final ModArchive archive;
+        private final List<String> entries;
+        private final int start;
+        private final int end;
+
+        private ScanTask(String jarName, ModArchive archive, List<String> entries, int start, int end)
+        {
+            this.jarName = jarName;
+            this.archive = archive;
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ScanBuffer compute()
+        {
+            if (end - start > splitThreshold)
+            {
+                int mid = (start + end) >>> 1;
+                ScanTask first = new ScanTask(jarName, archive, entries, start, mid);
+                first.fork();
+                ScanBuffer second = new ScanTask(jarName, archive, entries, mid, end).compute();
+                return first.join().append(second);
+            }
+
+            ScanBuffer buffer = new ScanBuffer();
+            for (int i = start; i < end; i++)
+            {
+                String entry = entries.get(i);
+                byte[] classFile;
+                try
+                {
+                    classFile = archive.read(entry);
+                }
+                catch (IOException e)
+                {
+                    Main.LOG.error("Failed to read class file '%s' from mod JAR '%s'", entry, jarName, e);
+                    continue;
+                }
+                buffer.entriesRead++;
+                buffer.bytesRead += classFile.length;
+                scanClass(jarName, classFile, buffer.containingClasses);
+            }
+            return buffer;
+        }
+    }
 }
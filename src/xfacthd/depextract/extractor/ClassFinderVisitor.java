@@ -0,0 +1,561 @@
+package xfacthd.depextract.extractor;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.util.Printer;
+import xfacthd.depextract.data.classfinder.LocatedTarget;
+import xfacthd.depextract.data.classfinder.MemberTarget;
+import xfacthd.depextract.util.ClassNameMatcher;
+
+import java.util.*;
+
+// Collects the references to the target classes while a class is streamed through it. The references are reported in
+// the same order as a traversal of the class's tree representation would report them, which requires buffering the
+// references of the parts of the class the reader visits in a different order. The location of a reference is kept
+// as a stack of path segments and only rendered when a reference is found. References made by instructions are reported
+// after all other references of their method
+final class ClassFinderVisitor extends ClassVisitor
+{
+    private static final String SEPARATOR = " -> ";
+    private static final String[] PARAM_SEGMENTS = new String[16];
+
+    static
+    {
+        for (int i = 0; i < PARAM_SEGMENTS.length; i++)
+        {
+            PARAM_SEGMENTS[i] = "param" + i;
+        }
+    }
+
+    private final ClassNameMatcher targetMatcher;
+    private final Map<String, List<MemberTarget>> memberTargets;
+    private final PathStack path = new PathStack();
+    private final Hits annotationHits = new Hits();
+    private final Hits interfaceHits = new Hits();
+    private final Hits memberHits = new Hits();
+    private final Hits superHits = new Hits();
+
+    ClassFinderVisitor(ClassNameMatcher targetMatcher, Map<String, List<MemberTarget>> memberTargets)
+    {
+        super(Opcodes.ASM9);
+        this.targetMatcher = targetMatcher;
+        this.memberTargets = memberTargets;
+    }
+
+    // Returns the located targets once the class has been visited completely
+    List<LocatedTarget> locatedTargets()
+    {
+        List<LocatedTarget> targets = new ArrayList<>();
+        annotationHits.drainTo(targets);
+        interfaceHits.drainTo(targets);
+        memberHits.drainTo(targets);
+        superHits.drainTo(targets);
+        return targets;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces)
+    {
+        path.push(name, SEPARATOR);
+        if (interfaces != null)
+        {
+            for (String itf : interfaces)
+            {
+                scanInternalName(interfaceHits, itf, "");
+            }
+        }
+        // The super class is reported last, module descriptors don't have one
+        if (superName != null)
+        {
+            scanInternalName(superHits, superName, "");
+        }
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible)
+    {
+        return scanAnnotation(annotationHits, descriptor, 0);
+    }
+
+    @Override
+    public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible)
+    {
+        return scanAnnotation(annotationHits, descriptor, 0);
+    }
+
+    @Override
+    public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature)
+    {
+        path.push(name, SEPARATOR);
+        return new RecordComponentVisitor(Opcodes.ASM9)
+        {
+            @Override
+            public AnnotationVisitor visitAnnotation(String annoDesc, boolean visible)
+            {
+                return scanAnnotation(memberHits, annoDesc, 0);
+            }
+
+            @Override
+            public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String annoDesc, boolean visible)
+            {
+                return scanAnnotation(memberHits, annoDesc, 0);
+            }
+
+            @Override
+            public void visitEnd()
+            {
+                scanDescriptor(memberHits, descriptor, 0, "");
+                path.pop(2);
+            }
+        };
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value)
+    {
+        path.push(name, SEPARATOR);
+        return new FieldVisitor(Opcodes.ASM9)
+        {
+            @Override
+            public AnnotationVisitor visitAnnotation(String annoDesc, boolean visible)
+            {
+                return scanAnnotation(memberHits, annoDesc, 0);
+            }
+
+            @Override
+            public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String annoDesc, boolean visible)
+            {
+                return scanAnnotation(memberHits, annoDesc, 0);
+            }
+
+            @Override
+            public void visitEnd()
+            {
+                scanDescriptor(memberHits, descriptor, 0, "");
+                path.pop(2);
+            }
+        };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions)
+    {
+        path.push(name, "()" + SEPARATOR);
+        return new MethodScanner(access, descriptor, exceptions);
+    }
+
+    // Checks the annotation's type and returns a visitor for its values, which removes the given amount of additional
+    // path segments when the annotation is done
+    private AnnotationVisitor scanAnnotation(Hits hits, String descriptor, int extraSegments)
+    {
+        scanDescriptor(hits, descriptor, 0, "@");
+        path.push("@", descriptor, SEPARATOR);
+        return new ValueScanner(hits, null, extraSegments + 3);
+    }
+
+    private void scanInternalName(Hits hits, String internalName, String tail)
+    {
+        if (internalName.charAt(0) == '[')
+        {
+            scanDescriptor(hits, internalName, 0, tail);
+        }
+        else
+        {
+            checkTarget(hits, internalName, 0, internalName.length(), tail);
+        }
+    }
+
+    // Checks the field descriptor starting at the given index, array types are checked by their element type
+    private void scanDescriptor(Hits hits, String descriptor, int start, String tail)
+    {
+        int elemStart = start;
+        while (descriptor.charAt(elemStart) == '[')
+        {
+            elemStart++;
+        }
+        if (descriptor.charAt(elemStart) != 'L')
+        {
+            return;
+        }
+        if (elemStart != start)
+        {
+            tail += "[";
+        }
+
+        checkTarget(hits, descriptor, elemStart + 1, descriptor.indexOf(';', elemStart), tail);
+    }
+
+    private void scanType(Hits hits, Type type, String tail)
+    {
+        if (type.getSort() == Type.ARRAY || type.getSort() == Type.OBJECT)
+        {
+            scanDescriptor(hits, type.getDescriptor(), 0, tail);
+        }
+    }
+
+    private void scanHandle(Hits hits, Handle handle)
+    {
+        scanMember(hits, handle.getOwner(), handle.getName(), handle.getDesc());
+    }
+
+    // Checks the owner of the member and the member itself
+    private void scanMember(Hits hits, String owner, String name, String desc)
+    {
+        scanInternalName(hits, owner, "");
+
+        List<MemberTarget> targets = memberTargets.get(owner);
+        if (targets == null)
+        {
+            return;
+        }
+        for (MemberTarget target : targets)
+        {
+            if (target.matches(name, desc))
+            {
+                // Only methods are identified by their descriptor
+                String located = owner + "#" + name + (desc.charAt(0) == '(' ? desc : "");
+                hits.add(new LocatedTarget(path.render(""), located));
+                return;
+            }
+        }
+    }
+
+    // Checks a constant loaded by an LDC instruction or passed to a bootstrap method
+    private void scanConstant(Hits hits, Object value)
+    {
+        if (value instanceof Type type)
+        {
+            scanType(hits, type, "");
+        }
+        else if (value instanceof Handle handle)
+        {
+            scanHandle(hits, handle);
+        }
+        else if (value instanceof ConstantDynamic condy)
+        {
+            scanHandle(hits, condy.getBootstrapMethod());
+            for (int i = 0; i < condy.getBootstrapMethodArgumentCount(); i++)
+            {
+                scanConstant(hits, condy.getBootstrapMethodArgument(i));
+            }
+        }
+    }
+
+    // Checks the internal name stored in the given region of the string
+    private void checkTarget(Hits hits, String str, int start, int end, String tail)
+    {
+        if (targetMatcher.matches(str, start, end))
+        {
+            hits.add(new LocatedTarget(path.render(tail), str.substring(start, end)));
+        }
+    }
+
+
+
+    // Visits the values of an annotation or, if the array name is set, the elements of an array value
+    private final class ValueScanner extends AnnotationVisitor
+    {
+        private final Hits hits;
+        private final String arrayName;
+        private final int segments;
+
+        private ValueScanner(Hits hits, String arrayName, int segments)
+        {
+            super(Opcodes.ASM9);
+            this.hits = hits;
+            this.arrayName = arrayName;
+            this.segments = segments;
+        }
+
+        @Override
+        public void visit(String name, Object value)
+        {
+            if (value instanceof Type type)
+            {
+                path.push(valueName(name), SEPARATOR);
+                scanType(hits, type, "");
+                path.pop(2);
+            }
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value)
+        {
+            path.push(valueName(name), SEPARATOR);
+            scanDescriptor(hits, descriptor, 0, "");
+            path.pop(2);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor)
+        {
+            path.push(valueName(name), SEPARATOR);
+            return scanAnnotation(hits, descriptor, 2);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name)
+        {
+            path.push(name, SEPARATOR);
+            return new ValueScanner(hits, name, 2);
+        }
+
+        @Override
+        public void visitEnd()
+        {
+            path.pop(segments);
+        }
+
+        // Elements of an array value are located by the array's name appended to the array's own location
+        private String valueName(String name)
+        {
+            return arrayName != null ? arrayName : name;
+        }
+    }
+
+    private final class MethodScanner extends MethodVisitor
+    {
+        private final int access;
+        private final String descriptor;
+        private final String[] exceptions;
+        private final int paramCount;
+        private final Hits annotationHits = new Hits();
+        private final Hits localVarAnnotationHits = new Hits();
+        private final Hits localVarHits = new Hits();
+        private final Hits instructionHits = new Hits();
+        private final List<TryCatchHits> tryCatchHits = new ArrayList<>();
+        private int[] paramAnnotationCounts = null;
+        private boolean paramAnnotationsVisible = true;
+
+        private MethodScanner(int access, String descriptor, String[] exceptions)
+        {
+            super(Opcodes.ASM9);
+            this.access = access;
+            this.descriptor = descriptor;
+            this.exceptions = exceptions;
+            this.paramCount = Type.getArgumentCount(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String annoDesc, boolean visible)
+        {
+            return scanAnnotation(annotationHits, annoDesc, 0);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String annoDesc, boolean visible)
+        {
+            return scanAnnotation(annotationHits, annoDesc, 0);
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String annoDesc, boolean visible)
+        {
+            // The location contains the index of the annotation within the annotations of its parameter
+            if (paramAnnotationCounts == null || paramAnnotationsVisible != visible)
+            {
+                paramAnnotationCounts = new int[Math.max(paramCount, parameter + 1)];
+                paramAnnotationsVisible = visible;
+            }
+            else if (parameter >= paramAnnotationCounts.length)
+            {
+                paramAnnotationCounts = Arrays.copyOf(paramAnnotationCounts, parameter + 1);
+            }
+            int index = paramAnnotationCounts[parameter]++;
+
+            path.push(index < PARAM_SEGMENTS.length ? PARAM_SEGMENTS[index] : ("param" + index), SEPARATOR);
+            return scanAnnotation(annotationHits, annoDesc, 2);
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type)
+        {
+            tryCatchHits.add(new TryCatchHits(type));
+        }
+
+        @Override
+        public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String annoDesc, boolean visible)
+        {
+            TryCatchHits block = tryCatchHits.get(new TypeReference(typeRef).getExceptionIndex());
+            path.push("try...catch", SEPARATOR);
+            return scanAnnotation(visible ? block.visibleAnnotationHits : block.invisibleAnnotationHits, annoDesc, 2);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type)
+        {
+            path.push(Printer.OPCODES[opcode], SEPARATOR);
+            scanInternalName(instructionHits, type, "");
+            path.pop(2);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String fieldDesc)
+        {
+            path.push(Printer.OPCODES[opcode], SEPARATOR);
+            scanMember(instructionHits, owner, name, fieldDesc);
+            path.pop(2);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String methodDesc, boolean isInterface)
+        {
+            path.push(Printer.OPCODES[opcode], SEPARATOR);
+            scanMember(instructionHits, owner, name, methodDesc);
+            path.pop(2);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String indyDesc, Handle bootstrapMethod, Object... bootstrapArgs)
+        {
+            path.push(Printer.OPCODES[Opcodes.INVOKEDYNAMIC], SEPARATOR);
+            scanHandle(instructionHits, bootstrapMethod);
+            for (Object arg : bootstrapArgs)
+            {
+                scanConstant(instructionHits, arg);
+            }
+            path.pop(2);
+        }
+
+        @Override
+        public void visitLdcInsn(Object value)
+        {
+            path.push(Printer.OPCODES[Opcodes.LDC], SEPARATOR);
+            scanConstant(instructionHits, value);
+            path.pop(2);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String arrayDesc, int numDimensions)
+        {
+            path.push(Printer.OPCODES[Opcodes.MULTIANEWARRAY], SEPARATOR);
+            scanDescriptor(instructionHits, arrayDesc, 0, "");
+            path.pop(2);
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String varDesc, String signature, Label start, Label end, int index)
+        {
+            int idx = (access & Opcodes.ACC_STATIC) != 0 ? index : (index - 1);
+            path.push(name, idx < paramCount ? " (param)" : " (local var)", SEPARATOR);
+            scanDescriptor(localVarHits, varDesc, 0, "");
+            path.pop(3);
+        }
+
+        @Override
+        public AnnotationVisitor visitLocalVariableAnnotation(
+                int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String annoDesc, boolean visible
+        )
+        {
+            return scanAnnotation(localVarAnnotationHits, annoDesc, 0);
+        }
+
+        @Override
+        public void visitEnd()
+        {
+            annotationHits.drainTo(memberHits);
+            localVarAnnotationHits.drainTo(memberHits);
+            localVarHits.drainTo(memberHits);
+            if (exceptions != null)
+            {
+                for (String exception : exceptions)
+                {
+                    scanInternalName(memberHits, exception, "");
+                }
+            }
+            if (!tryCatchHits.isEmpty())
+            {
+                path.push("try...catch", SEPARATOR);
+                for (TryCatchHits block : tryCatchHits)
+                {
+                    block.visibleAnnotationHits.drainTo(memberHits);
+                    block.invisibleAnnotationHits.drainTo(memberHits);
+                    if (block.type != null)
+                    {
+                        scanInternalName(memberHits, block.type, "");
+                    }
+                }
+                path.pop(2);
+            }
+            scanDescriptor(memberHits, descriptor, descriptor.indexOf(')') + 1, "");
+            instructionHits.drainTo(memberHits);
+            path.pop(2);
+        }
+    }
+
+    private record TryCatchHits(String type, Hits visibleAnnotationHits, Hits invisibleAnnotationHits)
+    {
+        private TryCatchHits(String type)
+        {
+            this(type, new Hits(), new Hits());
+        }
+    }
+
+    // Located targets of one part of the class, the list is only created once a target is found
+    private static final class Hits
+    {
+        private List<LocatedTarget> targets = null;
+
+        private void add(LocatedTarget target)
+        {
+            if (targets == null)
+            {
+                targets = new ArrayList<>();
+            }
+            targets.add(target);
+        }
+
+        private void drainTo(Hits hits)
+        {
+            if (targets != null)
+            {
+                targets.forEach(hits::add);
+                targets = null;
+            }
+        }
+
+        private void drainTo(List<LocatedTarget> list)
+        {
+            if (targets != null)
+            {
+                list.addAll(targets);
+                targets = null;
+            }
+        }
+    }
+
+    private static final class PathStack
+    {
+        private String[] segments = new String[32];
+        private int size = 0;
+
+        private void push(String... newSegments)
+        {
+            if (size + newSegments.length > segments.length)
+            {
+                segments = Arrays.copyOf(segments, Math.max(segments.length * 2, size + newSegments.length));
+            }
+            for (String segment : newSegments)
+            {
+                segments[size++] = segment;
+            }
+        }
+
+        private void pop(int count)
+        {
+            size -= count;
+        }
+
+        // Renders the location of a reference like "Class -> method() -> param", the tail is appended to the last
+        // segment before the trailing separator is removed
+        private String render(String tail)
+        {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < size; i++)
+            {
+                builder.append(segments[i]);
+            }
+            builder.append(tail);
+            return builder.substring(0, builder.length() - SEPARATOR.length());
+        }
+    }
+}
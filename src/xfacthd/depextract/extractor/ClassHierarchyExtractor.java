@@ -0,0 +1,290 @@
+package xfacthd.depextract.extractor;
+
+import com.google.gson.JsonElement;
+import joptsimple.*;
+import org.apache.commons.lang3.mutable.MutableObject;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import xfacthd.depextract.Main;
+import xfacthd.depextract.data.classhierarchy.ClassHierarchySegment;
+import xfacthd.depextract.html.Css;
+import xfacthd.depextract.html.Html;
+import xfacthd.depextract.util.*;
+
+import java.io.*;
+import java.util.*;
+
+public class ClassHierarchyExtractor extends DataExtractor<ClassHierarchySegment>
+{
+    private static final String SUBTYPES_RESULT_FILE_NAME = "subtypes.html";
+    private static final EntryMatcher ENTRY_MATCHER = EntryMatcher.of("**.class");
+
+    private OptionSpec<Boolean> findSubtypesOpt = null;
+    private OptionSpec<String> subtypeTargetsOpt = null;
+    private boolean active = false;
+    private final List<String> targets = new ArrayList<>();
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<ClassHierarchySegment> segments = new ArrayList<>();
+    private final Map<String, Map<String, List<ClassHierarchy.Subtype>>> subtypesPerTarget = new LinkedHashMap<>();
+
+    @Override
+    public void registerOptions(OptionParser parser)
+    {
+        findSubtypesOpt = parser.accepts("find_subtypes", "Find all classes extending or implementing arbitrary classes, directly or transitively")
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(false);
+
+        subtypeTargetsOpt = parser.accepts("subtype_targets", "Fully qualified names of classes whose subtypes should be found")
+                .availableIf(findSubtypesOpt)
+                .requiredIf(findSubtypesOpt)
+                .withRequiredArg()
+                .withValuesSeparatedBy(",")
+                .ofType(String.class);
+    }
+
+    @Override
+    public void readOptions(OptionSet options)
+    {
+        targets.clear();
+        fileNames.clear();
+        segments.clear();
+        subtypesPerTarget.clear();
+
+        active = options.valueOf(findSubtypesOpt);
+        if (!active)
+        {
+            return;
+        }
+
+        for (String target : options.valuesOf(subtypeTargetsOpt))
+        {
+            String name = target.replace('.', '/');
+            if (!targets.contains(name))
+            {
+                targets.add(name);
+            }
+        }
+    }
+
+    @Override
+    public boolean isActive() { return active; }
+
+    @Override
+    public String name() { return "ClassHierarchy"; }
+
+    @Override
+    public EntryMatcher entryMatcher() { return ENTRY_MATCHER; }
+
+    @Override
+    public ClassHierarchySegment acceptFile(JarContext modJar, List<String> entries)
+    {
+        String fileName = modJar.fileName();
+        SegmentBuilder builder = new SegmentBuilder();
+        for (String entry : entries)
+        {
+            byte[] classFile;
+            try
+            {
+                classFile = modJar.read(entry);
+            }
+            catch (IOException e)
+            {
+                Main.LOG.error("Failed to read class file '%s' from mod JAR '%s'", entry, fileName, e);
+                continue;
+            }
+
+            // The supertypes are part of the class header, the rest of the class doesn't need to be parsed
+            ClassReader reader = new ClassReader(classFile);
+            if ((reader.getAccess() & Opcodes.ACC_MODULE) == 0)
+            {
+                builder.add(reader.getClassName(), reader.getSuperName(), reader.getInterfaces());
+            }
+        }
+        return builder.isEmpty() ? null : builder.build();
+    }
+
+    @Override
+    public void acceptResult(String fileName, ClassHierarchySegment result)
+    {
+        fileNames.add(fileName);
+        segments.add(result);
+    }
+
+    // The targets are only resolved after all mod JARs were processed, changing them doesn't change the results
+    @Override
+    public String cacheVersion() { return ""; }
+
+    @Override
+    public JsonElement writeCacheEntry(ClassHierarchySegment result)
+    {
+        return ScanCache.GSON.toJsonTree(result, ClassHierarchySegment.class);
+    }
+
+    @Override
+    public ClassHierarchySegment readCacheEntry(JsonElement json)
+    {
+        return ScanCache.GSON.fromJson(json, ClassHierarchySegment.class);
+    }
+
+    @Override
+    public void postProcessData()
+    {
+        ClassHierarchy hierarchy = ClassHierarchy.build(segments);
+        Main.LOG.info("Built class hierarchy of %d classes declared %d times in %d JARs", hierarchy.classCount(), hierarchy.declarationCount(), segments.size());
+
+        ClassHierarchy.Resolution resolution = hierarchy.resolve(targets);
+        if (resolution.unresolvedCount() > 0)
+        {
+            Main.LOG.warning("Found %d classes with cyclic supertypes, their subtypes are not resolved", resolution.unresolvedCount());
+        }
+
+        List<List<ClassHierarchy.Subtype>> subtypes = resolution.subtypes();
+        for (int i = 0; i < targets.size(); i++)
+        {
+            Map<String, List<ClassHierarchy.Subtype>> subtypesPerFile = new TreeMap<>(String::compareToIgnoreCase);
+            for (ClassHierarchy.Subtype subtype : subtypes.get(i))
+            {
+                subtypesPerFile.computeIfAbsent(fileNames.get(subtype.fileIdx()), $ -> new ArrayList<>()).add(subtype);
+            }
+            subtypesPerFile.values().forEach(list -> list.sort(Comparator.comparing(ClassHierarchy.Subtype::className)));
+            subtypesPerTarget.put(targets.get(i), subtypesPerFile);
+        }
+    }
+
+    @Override
+    public void printResults(boolean darkMode, boolean minify, int modCount)
+    {
+        Main.LOG.info("Building Subtype display...");
+
+        PrintWriter writer = Utils.makePrintWriter(SUBTYPES_RESULT_FILE_NAME);
+        if (writer == null)
+        {
+            Main.LOG.error("Failed to write result page!");
+            return;
+        }
+
+        Html.html(
+                writer,
+                minify,
+                darkMode ? "style=\"background-color: #0d1117; color: #f0f6fc;\"" : "",
+                head ->
+                {
+                    Html.element(head, "title", "", "Subtype Result");
+
+                    Html.style(head, style ->
+                    {
+                        Css.declareSelector(style, ".mod_table", clazz ->
+                        {
+                            Css.property(clazz, "border", String.format("1px solid %s", darkMode ? "#c9d1d9" : "black"));
+                            Css.property(clazz, "border-collapse", "collapse");
+                            Css.property(clazz, "padding", "4px");
+                            Css.property(clazz, "vertical-align", "top");
+                        });
+                        Css.declareStickyHeader(style, darkMode);
+                    });
+                },
+                body ->
+                {
+                    Html.element(body, "h1", "", "Subtype Result");
+
+                    subtypesPerTarget.forEach((target, subtypesPerFile) ->
+                    {
+                        Html.element(body, "h3", "", target);
+
+                        List<ClassHierarchy.Subtype> all = subtypesPerFile.values().stream().flatMap(List::stream).toList();
+                        long direct = all.stream().filter(ClassHierarchy.Subtype::direct).count();
+                        // Subtypes are grouped by JAR including JiJed JARs, they are therefore put against the
+                        // amount of JARs in the hierarchy instead of the amount of mods
+                        body.println(String.format(
+                                "Found %d direct and %d transitive subtypes in %d out of %d JARs.<br>",
+                                direct, all.size() - direct, subtypesPerFile.size(), fileNames.size()
+                        ));
+                        if (all.isEmpty())
+                        {
+                            return;
+                        }
+
+                        String tableAttrib = "class=\"mod_table\"";
+                        MutableObject<String> lastOwner = new MutableObject<>("");
+                        Html.table(
+                                body,
+                                tableAttrib,
+                                thead -> Html.element(thead, "tr", tableAttrib, row ->
+                                {
+                                    Html.tableHeader(row, tableAttrib, "Mod file (Subtypes)");
+                                    Html.tableHeader(row, tableAttrib, "Subtype");
+                                    Html.tableHeader(row, tableAttrib, "Relation");
+                                    Html.tableHeader(row, tableAttrib, "Inherited through");
+                                }),
+                                tbody -> subtypesPerFile.forEach((fileName, subtypes) -> subtypes.forEach(subtype ->
+                                        Html.tableRow(tbody, tableAttrib, row ->
+                                        {
+                                            if (!fileName.equals(lastOwner.getValue()))
+                                            {
+                                                lastOwner.setValue(fileName);
+
+                                                String rowStyle = String.format("%s rowspan=\"%d\"", tableAttrib, subtypes.size());
+                                                Html.tableCell(row, rowStyle, String.format("%s (%d)", fileName, subtypes.size()));
+                                            }
+
+                                            Html.tableCell(row, tableAttrib, subtype.className());
+                                            Html.tableCell(row, tableAttrib, subtype.direct() ? "Direct" : "Transitive");
+                                            Html.tableCell(row, tableAttrib, String.join("<br>", subtype.via()));
+                                        })
+                                ))
+                        );
+                    });
+                }
+        );
+
+        writer.close();
+
+        Main.LOG.info("Subtype display built");
+    }
+
+
+
+    // Collects the supertypes of the classes of a single JAR, names are only stored once per JAR
+    private static final class SegmentBuilder
+    {
+        private final Map<String, Integer> nameIds = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[] types = new int[4 * 64];
+        private int size = 0;
+
+        private void add(String className, String superName, String[] interfaces)
+        {
+            if (size + 3 + interfaces.length > types.length)
+            {
+                types = Arrays.copyOf(types, Math.max(types.length * 2, size + 3 + interfaces.length));
+            }
+            types[size++] = nameId(className);
+            types[size++] = superName != null ? nameId(superName) : -1;
+            types[size++] = interfaces.length;
+            for (String itf : interfaces)
+            {
+                types[size++] = nameId(itf);
+            }
+        }
+
+        private int nameId(String name)
+        {
+            Integer id = nameIds.get(name);
+            if (id == null)
+            {
+                id = names.size();
+                nameIds.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        private boolean isEmpty() { return size == 0; }
+
+        private ClassHierarchySegment build()
+        {
+            return new ClassHierarchySegment(names.toArray(String[]::new), Arrays.copyOf(types, size));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package xfacthd.depextract.extractor;
+
+import com.google.gson.JsonElement;
+import joptsimple.*;
+import joptsimple.util.PathConverter;
+import org.objectweb.asm.ClassReader;
+import xfacthd.depextract.Main;
+import xfacthd.depextract.data.classindex.ClassIndexSegment;
+import xfacthd.depextract.data.classindex.ReferenceKind;
+import xfacthd.depextract.jfr.ClassParseEvent;
+import xfacthd.depextract.util.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+public class ClassIndexExtractor extends DataExtractor<ClassIndexSegment>
+{
+    private static final EntryMatcher ENTRY_MATCHER = EntryMatcher.of("**.class");
+
+    private OptionSpec<Boolean> buildIndexOpt = null;
+    private OptionSpec<Path> indexFileOpt = null;
+    private boolean active = false;
+    private Path indexFile = null;
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<ClassIndexSegment> segments = new ArrayList<>();
+
+    @Override
+    public void registerOptions(OptionParser parser)
+    {
+        buildIndexOpt = parser.accepts("build_class_index", "Build an index of the classes and members referenced by all classes of all mods")
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(false);
+
+        indexFileOpt = parser.accepts("class_index", "The file the class reference index is written to and queried from")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter())
+                .defaultsTo(Path.of("class_index.bin"));
+    }
+
+    @Override
+    public void readOptions(OptionSet options)
+    {
+        fileNames.clear();
+        segments.clear();
+
+        active = options.valueOf(buildIndexOpt);
+        indexFile = options.valueOf(indexFileOpt);
+    }
+
+    // The index file is also needed by the ClassFinder when the index isn't built in the same run
+    public Path indexFile() { return indexFile; }
+
+    @Override
+    public boolean isActive() { return active; }
+
+    @Override
+    public String name() { return "ClassIndex"; }
+
+    @Override
+    public EntryMatcher entryMatcher() { return ENTRY_MATCHER; }
+
+    @Override
+    public ClassIndexSegment acceptFile(JarContext modJar, List<String> entries) throws IOException
+    {
+        String fileName = modJar.fileName();
+        SegmentBuilder builder = new SegmentBuilder();
+        for (String entry : entries)
+        {
+            byte[] classFile;
+            try
+            {
+                classFile = modJar.read(entry);
+            }
+            catch (IOException e)
+            {
+                Main.LOG.error("Failed to read class file '%s' from mod JAR '%s'", entry, fileName, e);
+                continue;
+            }
+
+            ClassParseEvent event = new ClassParseEvent();
+            event.begin();
+            ClassReader reader = new ClassReader(classFile);
+            builder.startClass(reader.getClassName());
+            reader.accept(new ClassReferenceCollector(builder::add), ClassReader.SKIP_FRAMES);
+            event.extractor = name();
+            event.fileName = fileName;
+            event.className = reader.getClassName();
+            event.size = classFile.length;
+            event.commit();
+        }
+
+        // JiJed JARs are identified by the mod JAR containing them
+        return builder.build(modJar.jij() ? null : modJar.modInfo().filePath().toAbsolutePath().toString());
+    }
+
+    @Override
+    public void acceptResult(String fileName, ClassIndexSegment result)
+    {
+        fileNames.add(fileName);
+        segments.add(result);
+    }
+
+    @Override
+    public String cacheVersion() { return ""; }
+
+    @Override
+    public JsonElement writeCacheEntry(ClassIndexSegment result)
+    {
+        return ScanCache.GSON.toJsonTree(result, ClassIndexSegment.class);
+    }
+
+    @Override
+    public ClassIndexSegment readCacheEntry(JsonElement json)
+    {
+        return ScanCache.GSON.fromJson(json, ClassIndexSegment.class);
+    }
+
+    @Override
+    public void postProcessData()
+    {
+        Main.LOG.info("Writing class index...");
+
+        // The size and modification time are taken from the mod JARs as they are now, a cached segment may stem from a
+        // run before the modification time of its JAR changed
+        long[] sizes = new long[segments.size()];
+        long[] modified = new long[segments.size()];
+        for (int i = 0; i < segments.size(); i++)
+        {
+            String source = segments.get(i).source();
+            if (source == null)
+            {
+                continue;
+            }
+            try
+            {
+                Path modFile = Path.of(source);
+                sizes[i] = Files.size(modFile);
+                modified[i] = Files.getLastModifiedTime(modFile).toMillis();
+            }
+            catch (IOException e)
+            {
+                // The index is marked as outdated for this JAR when queried
+                Main.LOG.warning("Failed to read attributes of mod JAR '%s'", source, e);
+            }
+        }
+
+        try
+        {
+            ClassIndex.write(indexFile, fileNames, segments, sizes, modified);
+        }
+        catch (IOException e)
+        {
+            Main.LOG.error("Failed to write class index to '%s'", indexFile, e);
+            return;
+        }
+        int references = segments.stream().mapToInt(ClassIndexSegment::referenceCount).sum();
+        Main.LOG.info("Class index with %d references in %d JARs written to '%s'", references, segments.size(), indexFile);
+    }
+
+    @Override
+    public void printResults(boolean darkMode, boolean minify, int modCount) { }
+
+
+
+    // Collects the references of the classes of a single JAR, each distinct reference of a class is only stored once
+    private static final class SegmentBuilder
+    {
+        private final Map<String, Integer> nameIds = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final Set<Long> classReferences = new HashSet<>();
+        private int[] references = new int[3 * 64];
+        private int size = 0;
+        private int currentClass = -1;
+
+        private void startClass(String className)
+        {
+            currentClass = nameId(className);
+            classReferences.clear();
+        }
+
+        private void add(String name, ReferenceKind kind)
+        {
+            int nameId = nameId(name);
+            if (!classReferences.add(((long) nameId << 8) | kind.ordinal()))
+            {
+                return;
+            }
+            if (size + 3 > references.length)
+            {
+                references = Arrays.copyOf(references, references.length * 2);
+            }
+            references[size++] = nameId;
+            references[size++] = currentClass;
+            references[size++] = kind.ordinal();
+        }
+
+        private int nameId(String name)
+        {
+            Integer id = nameIds.get(name);
+            if (id == null)
+            {
+                id = names.size();
+                nameIds.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        private ClassIndexSegment build(String source)
+        {
+            return new ClassIndexSegment(
+                    source,
+                    names.toArray(String[]::new),
+                    Arrays.copyOf(references, size)
+            );
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package xfacthd.depextract.extractor;
+
+import org.objectweb.asm.*;
+import xfacthd.depextract.data.classindex.ReferenceKind;
+
+import java.util.function.BiConsumer;
+
+// Reports every class and member referenced by a class streamed through it. Classes are reported by their internal
+// name, methods as "owner#name(desc)" and fields as "owner#name". A reference may be reported multiple times
+final class ClassReferenceCollector extends ClassVisitor
+{
+    private final BiConsumer<String, ReferenceKind> consumer;
+    private final AnnotationVisitor annotationCollector = new AnnotationCollector();
+    private final FieldVisitor fieldCollector = new FieldCollector();
+    private final MethodVisitor methodCollector = new MethodCollector();
+    private final RecordComponentVisitor recordComponentCollector = new RecordComponentCollector();
+
+    ClassReferenceCollector(BiConsumer<String, ReferenceKind> consumer)
+    {
+        super(Opcodes.ASM9);
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces)
+    {
+        if (superName != null)
+        {
+            addInternalName(superName, ReferenceKind.SUPER_TYPE);
+        }
+        if (interfaces != null)
+        {
+            for (String itf : interfaces)
+            {
+                addInternalName(itf, ReferenceKind.SUPER_TYPE);
+            }
+        }
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible)
+    {
+        return visitAnnotation(descriptor);
+    }
+
+    @Override
+    public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible)
+    {
+        return visitAnnotation(descriptor);
+    }
+
+    @Override
+    public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature)
+    {
+        addDescriptor(descriptor, ReferenceKind.FIELD_TYPE);
+        return recordComponentCollector;
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value)
+    {
+        addDescriptor(descriptor, ReferenceKind.FIELD_TYPE);
+        return fieldCollector;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions)
+    {
+        // Parameters are only reported through the local variable table like the ClassFinder finds them, which keeps the
+        // results of a search in the index the same as those of scanning the classes
+        addDescriptor(descriptor.substring(descriptor.indexOf(')') + 1), ReferenceKind.METHOD_SIGNATURE);
+        if (exceptions != null)
+        {
+            for (String exception : exceptions)
+            {
+                addInternalName(exception, ReferenceKind.EXCEPTION);
+            }
+        }
+        return methodCollector;
+    }
+
+    private AnnotationVisitor visitAnnotation(String descriptor)
+    {
+        addDescriptor(descriptor, ReferenceKind.ANNOTATION);
+        return annotationCollector;
+    }
+
+    private void addInternalName(String internalName, ReferenceKind kind)
+    {
+        if (internalName.charAt(0) == '[')
+        {
+            addDescriptor(internalName, kind);
+        }
+        else
+        {
+            consumer.accept(internalName, kind);
+        }
+    }
+
+    // Reports every class in a field or method descriptor
+    private void addDescriptor(String descriptor, ReferenceKind kind)
+    {
+        int idx = descriptor.indexOf('L');
+        while (idx != -1)
+        {
+            int end = descriptor.indexOf(';', idx);
+            consumer.accept(descriptor.substring(idx + 1, end), kind);
+            idx = descriptor.indexOf('L', end);
+        }
+    }
+
+    private void addMember(String owner, String name, String descriptor)
+    {
+        addInternalName(owner, ReferenceKind.INSTRUCTION);
+        // Only methods are identified by their descriptor
+        String member = owner + "#" + name + (descriptor.charAt(0) == '(' ? descriptor : "");
+        consumer.accept(member, ReferenceKind.INSTRUCTION);
+    }
+
+    private void addConstant(Object value)
+    {
+        if (value instanceof Type type)
+        {
+            if (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY)
+            {
+                addDescriptor(type.getDescriptor(), ReferenceKind.INSTRUCTION);
+            }
+        }
+        else if (value instanceof Handle handle)
+        {
+            addMember(handle.getOwner(), handle.getName(), handle.getDesc());
+        }
+        else if (value instanceof ConstantDynamic condy)
+        {
+            addConstant(condy.getBootstrapMethod());
+            for (int i = 0; i < condy.getBootstrapMethodArgumentCount(); i++)
+            {
+                addConstant(condy.getBootstrapMethodArgument(i));
+            }
+        }
+    }
+
+
+
+    private final class AnnotationCollector extends AnnotationVisitor
+    {
+        private AnnotationCollector()
+        {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(String name, Object value)
+        {
+            if (value instanceof Type type && (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY))
+            {
+                addDescriptor(type.getDescriptor(), ReferenceKind.ANNOTATION);
+            }
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value)
+        {
+            addDescriptor(descriptor, ReferenceKind.ANNOTATION);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor)
+        {
+            addDescriptor(descriptor, ReferenceKind.ANNOTATION);
+            return this;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name)
+        {
+            return this;
+        }
+    }
+
+    private final class RecordComponentCollector extends RecordComponentVisitor
+    {
+        private RecordComponentCollector()
+        {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+    }
+
+    private final class FieldCollector extends FieldVisitor
+    {
+        private FieldCollector()
+        {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+    }
+
+    private final class MethodCollector extends MethodVisitor
+    {
+        private MethodCollector()
+        {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitLocalVariableAnnotation(
+                int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String descriptor, boolean visible
+        )
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible)
+        {
+            return ClassReferenceCollector.this.visitAnnotation(descriptor);
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type)
+        {
+            if (type != null)
+            {
+                addInternalName(type, ReferenceKind.EXCEPTION);
+            }
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index)
+        {
+            addDescriptor(descriptor, ReferenceKind.LOCAL_VARIABLE);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type)
+        {
+            addInternalName(type, ReferenceKind.INSTRUCTION);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor)
+        {
+            addMember(owner, name, descriptor);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface)
+        {
+            addMember(owner, name, descriptor);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethod, Object... bootstrapArgs)
+        {
+            addConstant(bootstrapMethod);
+            for (Object arg : bootstrapArgs)
+            {
+                addConstant(arg);
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object value)
+        {
+            addConstant(value);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions)
+        {
+            addDescriptor(descriptor, ReferenceKind.INSTRUCTION);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import com.google.gson.*;
 import joptsimple.*;
 import org.apache.commons.lang3.mutable.MutableObject;
 import xfacthd.depextract.Main;
-import xfacthd.depextract.data.FileEntry;
 import xfacthd.depextract.data.coremod.CoremodConfig;
 import xfacthd.depextract.html.Css;
 import xfacthd.depextract.html.Html;
@@ -14,9 +13,11 @@ import java.io.*;
 import java.nio.file.*;
 import java.util.*;
 
-public class CoremodExtractor extends DataExtractor
+public class CoremodExtractor extends DataExtractor<CoremodConfig>
 {
     private static final String COREMOD_RESULT_FILE_NAME = "coremods.html";
+    private static final String COREMOD_ENTRY_NAME = "META-INF/coremods.json";
+    private static final EntryMatcher ENTRY_MATCHER = EntryMatcher.of(COREMOD_ENTRY_NAME);
     private static final Gson GSON = new Gson();
 
     private final Map<String, CoremodConfig> coremodEntries = new HashMap<>();
@@ -45,32 +46,51 @@ public class CoremodExtractor extends DataExtractor
     public String name() { return "Coremods"; }
 
     @Override
-    public void acceptFile(String fileName, FileSystem modJar, boolean jij, FileEntry modInfo) throws IOException
-    {
-        Path cmEntry = modJar.getPath("META-INF/coremods.json");
-        if (!Files.exists(cmEntry)) { return; }
+    public EntryMatcher entryMatcher() { return ENTRY_MATCHER; }
 
-        InputStream cmStream = Files.newInputStream(cmEntry);
+    @Override
+    public CoremodConfig acceptFile(JarContext modJar, List<String> entries) throws IOException
+    {
+        String fileName = modJar.fileName();
+        InputStream cmStream = modJar.open(COREMOD_ENTRY_NAME);
         JsonElement cmElem = GSON.fromJson(new InputStreamReader(cmStream), JsonObject.class);
         cmStream.close();
 
         if (!cmElem.isJsonObject())
         {
             Main.LOG.error("Encountered invalid coremods config in mod JAR '%s'", fileName);
-            return;
+            return null;
         }
 
         CoremodConfig config = CoremodConfig.fromJson(cmElem.getAsJsonObject());
         if (!config.coremods().isEmpty())
         {
-            config.coremods().forEach((name, path) ->
-            {
-                Path jsEntry = modJar.getPath(path);
-                config.jsPresent().put(name, Files.exists(jsEntry));
-            });
+            config.coremods().forEach((name, path) -> config.jsPresent().put(name, modJar.exists(path)));
 
-            coremodEntries.put(fileName, config);
+            return config;
         }
+        return null;
+    }
+
+    @Override
+    public void acceptResult(String fileName, CoremodConfig result)
+    {
+        coremodEntries.put(fileName, result);
+    }
+
+    @Override
+    public String cacheVersion() { return ""; }
+
+    @Override
+    public JsonElement writeCacheEntry(CoremodConfig result)
+    {
+        return ScanCache.GSON.toJsonTree(result);
+    }
+
+    @Override
+    public CoremodConfig readCacheEntry(JsonElement json)
+    {
+        return ScanCache.GSON.fromJson(json, CoremodConfig.class);
     }
 
     @Override
@@ -1,6 +1,8 @@
 package xfacthd.depextract.extractor;
 
 import com.google.common.collect.*;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
 import com.moandjiezana.toml.Toml;
 import joptsimple.*;
 import org.apache.commons.lang3.mutable.MutableObject;
@@ -12,17 +14,17 @@ import xfacthd.depextract.Main;
 import xfacthd.depextract.data.FileEntry;
 import xfacthd.depextract.data.dependency.*;
 import xfacthd.depextract.html.*;
-import xfacthd.depextract.util.DataExtractor;
-import xfacthd.depextract.util.Utils;
+import xfacthd.depextract.util.*;
 
 import javax.annotation.Nullable;
 import java.io.*;
+import java.lang.reflect.Type;
 import java.nio.file.*;
 import java.util.*;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
-public class DependencyExtractor extends DataExtractor
+public class DependencyExtractor extends DataExtractor<Multimap<String, ModEntry>>
 {
     public static final String DEP_RESULT_FILE_NAME = "dependencies.html";
     private static final Comparator<ModEntry> ENTRY_COMPARATOR = (entryOne, entryTwo) -> compareModIDs(entryOne.modId(), entryTwo.modId());
@@ -33,10 +35,12 @@ public class DependencyExtractor extends DataExtractor
     private static final Attributes.Name IMPL_TITLE_NAME = new Attributes.Name("Implementation-Title");
     private static final Attributes.Name IMPL_VER_NAME = new Attributes.Name("Implementation-Version");
     private static final Attributes.Name MOD_TYPE_NAME = new Attributes.Name("FMLModType");
+    private static final Type CACHE_TYPE = new TypeToken<Map<String, List<ModEntry>>>() { }.getType();
 
-    private final Multimap<String, ModEntry> modEntries = HashMultimap.create();
+    // Linked multimaps keep the results independent of hash codes and therefore reproducible between runs
+    private final Multimap<String, ModEntry> modEntries = LinkedHashMultimap.create();
     private final Table<ModEntry, Dependency, DepResult> depResults = HashBasedTable.create(0, 4);
-    private final Multimap<String, ModEntry> duplicates = HashMultimap.create();
+    private final Multimap<String, ModEntry> duplicates = LinkedHashMultimap.create();
     private OptionSpec<String> minecraftOpt = null;
     private OptionSpec<String> neoForgeOpt = null;
     private OptionSpec<Boolean> onlyUnsatisfiedOpt = null;
@@ -87,19 +91,28 @@ public class DependencyExtractor extends DataExtractor
     @Override
     public String name() { return "Dependencies"; }
 
+    // JiJed JARs without any metadata are still listed as libraries
     @Override
-    public void acceptFile(String fileName, FileSystem modJar, boolean jij, FileEntry modInfo) throws IOException
+    public EntryMatcher entryMatcher() { return EntryMatcher.EVERY_JAR; }
+
+    @Override
+    public Multimap<String, ModEntry> acceptFile(JarContext modJar, List<String> jarEntries) throws IOException
     {
+        String fileName = modJar.fileName();
+        boolean jij = modJar.jij();
+        FileEntry modInfo = modJar.modInfo();
         Path sourcePath = modInfo.srcPath();
-        Path tomlEntry = modJar.getPath("META-INF/neoforge.mods.toml");
-        Manifest manifest = findManifest(modJar, fileName);
-        if (Files.exists(tomlEntry))
+        Manifest manifest = modJar.manifest();
+        if (modJar.hasModsToml())
         {
-            InputStream tomlStream = Files.newInputStream(tomlEntry);
-            Multimap<String, ModEntry> entries = parseModEntriesInFile(sourcePath, fileName, tomlStream, manifest, jij);
+            Toml toml = modJar.modsToml();
+            Multimap<String, ModEntry> entries = LinkedHashMultimap.create();
+            if (toml != null)
+            {
+                entries = parseModEntriesInFile(sourcePath, fileName, toml, manifest, jij);
+            }
             if (!entries.isEmpty())
             {
-                modEntries.putAll(entries);
                 Main.LOG.debug("Found %d mod(s) in mod JAR '%s'", entries.size(), fileName);
             }
             else
@@ -107,16 +120,19 @@ public class DependencyExtractor extends DataExtractor
                 Main.LOG.error("Failed to parse mod definition for mod JAR '%s'", fileName);
             }
 
-            tomlStream.close();
-
-            jarCount++;
+            return entries;
         }
         else
         {
             if (compareManifestEntry(manifest, MOD_TYPE_NAME, "LANGPROVIDER"))
             {
-                parseLanguageProvider(sourcePath, fileName, modJar, manifest, jij);
-                jarCount++;
+                Multimap<String, ModEntry> entries = LinkedHashMultimap.create();
+                ModEntry entry = parseLanguageProvider(sourcePath, fileName, modJar, manifest, jij);
+                if (entry != null)
+                {
+                    entries.put(entry.modId(), entry);
+                }
+                return entries;
             }
             else if (compareManifestEntry(manifest, MOD_TYPE_NAME, "GAMELIBRARY", "LIBRARY") || jij)
             {
@@ -147,18 +163,65 @@ public class DependencyExtractor extends DataExtractor
 
                 String modId = name.toLowerCase(Locale.ROOT).replace(' ', '_').replace(".jar", "");
 
-                modEntries.put(fileName, new ModEntry(
+                Multimap<String, ModEntry> entries = LinkedHashMultimap.create();
+                entries.put(fileName, new ModEntry(
                         fileName, modId, name, new DefaultArtifactVersion(version), List.of(), modType, jij, sourcePath
                 ));
-                jarCount++;
+                return entries;
             }
             else
             {
                 Main.LOG.warning("Mod definition not found in mod JAR '%s', skipping", fileName);
+                return null;
             }
         }
     }
 
+    @Override
+    public void acceptResult(String fileName, Multimap<String, ModEntry> result)
+    {
+        // An empty result still counts towards the amount of mod JARs
+        modEntries.putAll(result);
+        jarCount++;
+    }
+
+    @Override
+    public Multimap<String, ModEntry> relocate(Multimap<String, ModEntry> result, Path oldSource, Path newSource)
+    {
+        Multimap<String, ModEntry> relocated = LinkedHashMultimap.create();
+        result.forEach((key, entry) ->
+        {
+            Path fileSource = entry.fileSource();
+            if (fileSource.startsWith(oldSource))
+            {
+                fileSource = newSource.resolve(oldSource.relativize(fileSource));
+            }
+            relocated.put(key, new ModEntry(
+                    entry.fileName(), entry.modId(), entry.modName(), entry.version(),
+                    entry.dependencies(), entry.modType(), entry.jij(), fileSource
+            ));
+        });
+        return relocated;
+    }
+
+    @Override
+    public String cacheVersion() { return ""; }
+
+    @Override
+    public JsonElement writeCacheEntry(Multimap<String, ModEntry> result)
+    {
+        return ScanCache.GSON.toJsonTree(result.asMap(), CACHE_TYPE);
+    }
+
+    @Override
+    public Multimap<String, ModEntry> readCacheEntry(JsonElement json)
+    {
+        Map<String, List<ModEntry>> entries = ScanCache.GSON.fromJson(json, CACHE_TYPE);
+        Multimap<String, ModEntry> result = LinkedHashMultimap.create();
+        entries.forEach(result::putAll);
+        return result;
+    }
+
     @Override
     public void postProcessData()
     {
@@ -431,20 +494,9 @@ public class DependencyExtractor extends DataExtractor
 
 
 
-    private static Multimap<String, ModEntry> parseModEntriesInFile(Path sourcePath, String fileName, InputStream tomlStream, @Nullable Manifest manifest, boolean jij)
+    private static Multimap<String, ModEntry> parseModEntriesInFile(Path sourcePath, String fileName, Toml toml, @Nullable Manifest manifest, boolean jij)
     {
-        Multimap<String, ModEntry> modList = HashMultimap.create();
-
-        Toml toml;
-        try
-        {
-            toml = new Toml().read(tomlStream);
-        }
-        catch (Throwable t)
-        {
-            Main.LOG.error("Failed to parse mod definition in mod JAR '%s'", fileName, t);
-            return modList;
-        }
+        Multimap<String, ModEntry> modList = LinkedHashMultimap.create();
 
         List<Map<String, Object>> mods = toml.getList("mods");
 
@@ -550,7 +602,7 @@ public class DependencyExtractor extends DataExtractor
         }
     }
 
-    private void parseLanguageProvider(Path sourcePath, String fileName, FileSystem modJar, Manifest manifest, boolean jij)
+    private static ModEntry parseLanguageProvider(Path sourcePath, String fileName, JarContext modJar, Manifest manifest, boolean jij)
     {
         Attributes attrs = manifest.getMainAttributes();
 
@@ -566,7 +618,7 @@ public class DependencyExtractor extends DataExtractor
         else
         {
             Main.LOG.warning("Can't determine name of language provider in JAR '%s', skipping", fileName);
-            return;
+            return null;
         }
 
         String providerName = getProviderNameFromByteCode(fileName, modJar);
@@ -590,7 +642,7 @@ public class DependencyExtractor extends DataExtractor
             version = attrs.getValue(IMPL_VER_NAME);
         }
 
-        modEntries.put(providerName, new ModEntry(
+        return new ModEntry(
                 fileName,
                 providerName,
                 displayName,
@@ -599,13 +651,13 @@ public class DependencyExtractor extends DataExtractor
                 "LANGPROVIDER",
                 jij,
                 sourcePath
-        ));
+        );
     }
 
-    private static String getProviderNameFromByteCode(String fileName, FileSystem modJar)
+    private static String getProviderNameFromByteCode(String fileName, JarContext modJar)
     {
-        Path serviceEntry = modJar.getPath("META-INF/services/net.neoforged.neoforgespi.language.IModLanguageLoader");
-        if (!Files.exists(serviceEntry))
+        String serviceEntry = "META-INF/services/net.neoforged.neoforgespi.language.IModLanguageLoader";
+        if (!modJar.exists(serviceEntry))
         {
             Main.LOG.error("Language Provider in JAR '%s' doesn't contain an IModLanguageProvider service file, this is invalid", fileName);
             return null;
@@ -614,9 +666,7 @@ public class DependencyExtractor extends DataExtractor
         String serviceClassName;
         try
         {
-            InputStream serviceStream = Files.newInputStream(serviceEntry);
-            serviceClassName = new String(serviceStream.readAllBytes());
-            serviceStream.close();
+            serviceClassName = new String(modJar.read(serviceEntry));
         }
         catch (IOException e)
         {
@@ -626,8 +676,8 @@ public class DependencyExtractor extends DataExtractor
 
         serviceClassName = serviceClassName.replace('.', '/').replaceAll("\\R", "");
 
-        Path serviceClass = modJar.getPath(serviceClassName + ".class");
-        if (!Files.exists(serviceClass))
+        String serviceClass = serviceClassName + ".class";
+        if (!modJar.exists(serviceClass))
         {
             Main.LOG.error("LanguageProvider class '%s' is missing from mod JAR '%s'", serviceClassName, fileName);
             return null;
@@ -636,9 +686,7 @@ public class DependencyExtractor extends DataExtractor
         byte[] code;
         try
         {
-            InputStream stream = Files.newInputStream(serviceClass);
-            code = stream.readAllBytes();
-            stream.close();
+            code = modJar.read(serviceClass);
         }
         catch (IOException e)
         {
@@ -0,0 +1,405 @@
+package xfacthd.depextract.extractor;
+
+import com.google.gson.JsonElement;
+import joptsimple.*;
+import xfacthd.depextract.Main;
+import xfacthd.depextract.data.JarInJarMeta;
+import xfacthd.depextract.data.duplicate.*;
+import xfacthd.depextract.html.Css;
+import xfacthd.depextract.html.Html;
+import xfacthd.depextract.util.*;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+public class DuplicateClassExtractor extends DataExtractor<ClassEntrySegment>
+{
+    private static final String DUPLICATES_RESULT_FILE_NAME = "duplicates.html";
+    private static final EntryMatcher ENTRY_MATCHER = EntryMatcher.of("**.class");
+
+    private OptionSpec<Boolean> findDuplicatesOpt = null;
+    private boolean active = false;
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<ClassEntrySegment> segments = new ArrayList<>();
+    private final List<SplitPackage> splitPackages = new ArrayList<>();
+    private final List<DuplicateClass> duplicateClasses = new ArrayList<>();
+
+    @Override
+    public void registerOptions(OptionParser parser)
+    {
+        findDuplicatesOpt = parser.accepts("find_duplicate_classes", "Find packages and classes shipped by multiple JARs")
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(false);
+    }
+
+    @Override
+    public void readOptions(OptionSet options)
+    {
+        fileNames.clear();
+        segments.clear();
+        splitPackages.clear();
+        duplicateClasses.clear();
+
+        active = options.valueOf(findDuplicatesOpt);
+    }
+
+    @Override
+    public boolean isActive() { return active; }
+
+    @Override
+    public String name() { return "DuplicateClasses"; }
+
+    @Override
+    public EntryMatcher entryMatcher() { return ENTRY_MATCHER; }
+
+    @Override
+    public ClassEntrySegment acceptFile(JarContext modJar, List<String> entries) throws IOException
+    {
+        Map<String, Integer> packageIds = new HashMap<>();
+        StringBuilder packages = new StringBuilder();
+        StringBuilder classes = new StringBuilder();
+        int[] classPackages = new int[entries.size()];
+        int[] crcs = new int[entries.size()];
+        int count = 0;
+        for (String entry : entries)
+        {
+            // Classes in the root can't be part of a module, versioned classes replace the class of the same name
+            int split = entry.lastIndexOf('/');
+            if (split == -1 || entry.startsWith("META-INF/"))
+            {
+                continue;
+            }
+
+            String pkg = entry.substring(0, split);
+            Integer pkgId = packageIds.get(pkg);
+            if (pkgId == null)
+            {
+                pkgId = packageIds.size();
+                packageIds.put(pkg, pkgId);
+                if (pkgId > 0)
+                {
+                    packages.append('\n');
+                }
+                packages.append(pkg);
+            }
+
+            if (count > 0)
+            {
+                classes.append('\n');
+            }
+            classes.append(entry, split + 1, entry.length() - ".class".length());
+            classPackages[count] = pkgId;
+            // Only the central directory is read, the entry itself isn't inflated
+            crcs[count] = modJar.archive().crc(entry);
+            count++;
+        }
+        if (count == 0)
+        {
+            return null;
+        }
+
+        JarInJarMeta jijMeta = modJar.modInfo().jijMeta();
+        return new ClassEntrySegment(
+                modJar.modInfo().filePath(),
+                jijMeta != null ? jijMeta.group() + ":" + jijMeta.artifact() : null,
+                packages.toString(),
+                classes.toString(),
+                Arrays.copyOf(classPackages, count),
+                Arrays.copyOf(crcs, count)
+        );
+    }
+
+    @Override
+    public void acceptResult(String fileName, ClassEntrySegment result)
+    {
+        fileNames.add(fileName);
+        segments.add(result);
+    }
+
+    @Override
+    public ClassEntrySegment relocate(ClassEntrySegment result, Path oldSource, Path newSource)
+    {
+        Path source = result.source();
+        if (!source.startsWith(oldSource))
+        {
+            return result;
+        }
+        return new ClassEntrySegment(
+                newSource.resolve(oldSource.relativize(source)),
+                result.artifact(),
+                result.packages(),
+                result.classes(),
+                result.classPackages(),
+                result.crcs()
+        );
+    }
+
+    @Override
+    public String cacheVersion() { return ""; }
+
+    @Override
+    public JsonElement writeCacheEntry(ClassEntrySegment result)
+    {
+        return ScanCache.GSON.toJsonTree(result, ClassEntrySegment.class);
+    }
+
+    @Override
+    public ClassEntrySegment readCacheEntry(JsonElement json)
+    {
+        return ScanCache.GSON.fromJson(json, ClassEntrySegment.class);
+    }
+
+    @Override
+    public void postProcessData()
+    {
+        // JARs are owned by the same module if they are versions of the same JiJed artifact, only one of them is loaded.
+        // Other JARs are owned by their full path as distinct JARs may share the same file name
+        Map<String, Integer> ownerIds = new HashMap<>();
+        int[] fileOwners = new int[segments.size()];
+        int classTotal = 0;
+        int packageTotal = 0;
+        for (int i = 0; i < segments.size(); i++)
+        {
+            ClassEntrySegment segment = segments.get(i);
+            String owner = segment.artifact() != null ? segment.artifact() : segment.source().toAbsolutePath().toString();
+            fileOwners[i] = ownerIds.computeIfAbsent(owner, $ -> ownerIds.size());
+            classTotal += segment.classCount();
+            packageTotal += segment.packageCount();
+        }
+
+        NameTable packageNames = new NameTable();
+        NameTable classNames = new NameTable();
+        int[] packageOccurrences = new int[packageTotal];
+        int[] packageFiles = new int[packageTotal];
+        int[] packageClassCounts = new int[packageTotal];
+        int[] classOccurrences = new int[classTotal];
+        int[] classFiles = new int[classTotal];
+        int[] classCrcs = new int[classTotal];
+        int packageCount = 0;
+        int classCount = 0;
+        for (int i = 0; i < segments.size(); i++)
+        {
+            ClassEntrySegment segment = segments.get(i);
+            String[] packages = segment.packages().split("\n");
+            int firstPackage = packageCount;
+            for (String pkg : packages)
+            {
+                packageOccurrences[packageCount] = packageNames.intern(pkg);
+                packageFiles[packageCount] = i;
+                packageCount++;
+            }
+
+            String classes = segment.classes();
+            int start = 0;
+            for (int j = 0; j < segment.classCount(); j++)
+            {
+                int end = classes.indexOf('\n', start);
+                if (end == -1)
+                {
+                    end = classes.length();
+                }
+                int pkg = segment.classPackages()[j];
+                packageClassCounts[firstPackage + pkg]++;
+                classOccurrences[classCount] = classNames.intern(packages[pkg] + "/" + classes.substring(start, end));
+                classFiles[classCount] = i;
+                classCrcs[classCount] = segment.crcs()[j];
+                classCount++;
+                start = end + 1;
+            }
+        }
+
+        Groups packageGroups = groupOccurrences(packageOccurrences, packageNames.size());
+        forEachCollision(packageGroups, packageFiles, fileOwners, (id, occurrences) ->
+        {
+            Map<String, Integer> classesPerJar = new TreeMap<>(String::compareToIgnoreCase);
+            for (int occurrence : occurrences)
+            {
+                classesPerJar.put(fileNames.get(packageFiles[occurrence]), packageClassCounts[occurrence]);
+            }
+            splitPackages.add(new SplitPackage(packageNames.name(id).replace('/', '.'), classesPerJar));
+        });
+        splitPackages.sort(Comparator.comparing(SplitPackage::packageName));
+
+        Groups classGroups = groupOccurrences(classOccurrences, classNames.size());
+        forEachCollision(classGroups, classFiles, fileOwners, (id, occurrences) ->
+        {
+            List<String> jars = new ArrayList<>(occurrences.length);
+            boolean identical = true;
+            for (int occurrence : occurrences)
+            {
+                jars.add(fileNames.get(classFiles[occurrence]));
+                identical &= classCrcs[occurrence] == classCrcs[occurrences[0]];
+            }
+            jars.sort(String::compareToIgnoreCase);
+            duplicateClasses.add(new DuplicateClass(classNames.name(id).replace('/', '.'), jars, identical));
+        });
+        duplicateClasses.sort(Comparator.comparing(DuplicateClass::className));
+
+        Main.LOG.info(
+                "Found %d split packages and %d duplicate classes among %d classes in %d JARs",
+                splitPackages.size(), duplicateClasses.size(), classNames.size(), segments.size()
+        );
+    }
+
+    // Groups the occurrences by name ID with a counting sort
+    private static Groups groupOccurrences(int[] occurrences, int names)
+    {
+        int[] starts = new int[names + 1];
+        for (int id : occurrences)
+        {
+            starts[id + 1]++;
+        }
+        for (int id = 0; id < names; id++)
+        {
+            starts[id + 1] += starts[id];
+        }
+        int[] sorted = new int[occurrences.length];
+        int[] fill = Arrays.copyOf(starts, names);
+        for (int i = 0; i < occurrences.length; i++)
+        {
+            sorted[fill[occurrences[i]]++] = i;
+        }
+        return new Groups(starts, sorted);
+    }
+
+    // Calls the consumer with the first occurrence of each owner for every name occurring in JARs of multiple owners
+    private static void forEachCollision(Groups groups, int[] files, int[] fileOwners, CollisionConsumer consumer)
+    {
+        int[] distinct = new int[0];
+        for (int id = 0; id < groups.starts.length - 1; id++)
+        {
+            int start = groups.starts[id];
+            int end = groups.starts[id + 1];
+            if (end - start < 2)
+            {
+                continue;
+            }
+
+            if (distinct.length < end - start)
+            {
+                distinct = new int[end - start];
+            }
+            int count = 0;
+            outer:
+            for (int i = start; i < end; i++)
+            {
+                int occurrence = groups.occurrences[i];
+                int owner = fileOwners[files[occurrence]];
+                for (int j = 0; j < count; j++)
+                {
+                    if (fileOwners[files[distinct[j]]] == owner)
+                    {
+                        continue outer;
+                    }
+                }
+                distinct[count++] = occurrence;
+            }
+            if (count > 1)
+            {
+                consumer.accept(id, Arrays.copyOf(distinct, count));
+            }
+        }
+    }
+
+    @Override
+    public void printResults(boolean darkMode, boolean minify, int modCount)
+    {
+        Main.LOG.info("Building duplicate class display...");
+
+        PrintWriter writer = Utils.makePrintWriter(DUPLICATES_RESULT_FILE_NAME);
+        if (writer == null)
+        {
+            Main.LOG.error("Failed to write result page!");
+            return;
+        }
+
+        Html.html(
+                writer,
+                minify,
+                darkMode ? "style=\"background-color: #0d1117; color: #f0f6fc;\"" : "",
+                head ->
+                {
+                    Html.element(head, "title", "", "Duplicate Class Result");
+
+                    Html.style(head, style ->
+                    {
+                        Css.declareSelector(style, ".mod_table", clazz ->
+                        {
+                            Css.property(clazz, "border", String.format("1px solid %s", darkMode ? "#c9d1d9" : "black"));
+                            Css.property(clazz, "border-collapse", "collapse");
+                            Css.property(clazz, "padding", "4px");
+                            Css.property(clazz, "vertical-align", "top");
+                        });
+                        Css.declareStickyHeader(style, darkMode);
+                    });
+                },
+                body ->
+                {
+                    Html.element(body, "h1", "", "Duplicate Class Result");
+
+                    String tableAttrib = "class=\"mod_table\"";
+
+                    Html.element(body, "h3", "", "Split packages");
+                    body.println(String.format("Found %d packages shipped by multiple JARs.<br>", splitPackages.size()));
+                    if (!splitPackages.isEmpty())
+                    {
+                        Html.table(
+                                body,
+                                tableAttrib,
+                                thead -> Html.element(thead, "tr", tableAttrib, row ->
+                                {
+                                    Html.tableHeader(row, tableAttrib, "Package");
+                                    Html.tableHeader(row, tableAttrib, "JARs (Classes)");
+                                }),
+                                tbody -> splitPackages.forEach(pkg -> Html.tableRow(tbody, tableAttrib, row ->
+                                {
+                                    Html.tableCell(row, tableAttrib, pkg.packageName());
+                                    Html.tableCell(row, tableAttrib, cell -> pkg.classesPerJar().forEach((jar, classes) ->
+                                            cell.println(String.format("%s (%d)<br>", jar, classes))
+                                    ));
+                                }))
+                        );
+                    }
+
+                    Html.element(body, "h3", "", "Duplicate classes");
+                    body.println(String.format("Found %d classes shipped by multiple JARs.<br>", duplicateClasses.size()));
+                    if (!duplicateClasses.isEmpty())
+                    {
+                        Html.table(
+                                body,
+                                tableAttrib,
+                                thead -> Html.element(thead, "tr", tableAttrib, row ->
+                                {
+                                    Html.tableHeader(row, tableAttrib, "Class");
+                                    Html.tableHeader(row, tableAttrib, "JARs");
+                                    Html.tableHeader(row, tableAttrib, "Identical");
+                                }),
+                                tbody -> duplicateClasses.forEach(clazz -> Html.tableRow(tbody, tableAttrib, row ->
+                                {
+                                    Html.tableCell(row, tableAttrib, clazz.className());
+                                    Html.tableCell(row, tableAttrib, String.join("<br>", clazz.jars()));
+                                    Html.tableCell(row, tableAttrib, cell -> Html.writeBoolean(cell, "", clazz.identical()));
+                                }))
+                        );
+                    }
+                }
+        );
+
+        writer.close();
+
+        Main.LOG.info("Duplicate class display built");
+    }
+
+
+
+    // The occurrences sorted by name ID, the occurrences of name i are occurrences[starts[i]] until occurrences[starts[i + 1]]
+    private record Groups(int[] starts, int[] occurrences) { }
+
+    @FunctionalInterface
+    private interface CollisionConsumer
+    {
+        void accept(int nameId, int[] occurrences);
+    }
+}
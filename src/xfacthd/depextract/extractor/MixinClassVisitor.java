@@ -0,0 +1,94 @@
+package xfacthd.depextract.extractor;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.AnnotationNode;
+import xfacthd.depextract.data.mixin.*;
+
+import java.util.*;
+
+// Collects the @Mixin annotation and the injections of a Mixin class streamed through it. Only the annotations which
+// are needed are materialized, the class should be read with ClassReader.SKIP_CODE as method bodies are never visited
+final class MixinClassVisitor extends ClassVisitor
+{
+    private static final String MIXIN_DESC = "Lorg/spongepowered/asm/mixin/Mixin;";
+    private static final Map<String, MixinInjectionType> INJECTION_TYPES = Map.of(
+            "Lorg/spongepowered/asm/mixin/gen/Accessor;", MixinInjectionType.ACCESSOR,
+            "Lorg/spongepowered/asm/mixin/gen/Invoker;", MixinInjectionType.INVOKER,
+            "Lorg/spongepowered/asm/mixin/injection/Inject;", MixinInjectionType.INJECT,
+            "Lorg/spongepowered/asm/mixin/injection/Redirect;", MixinInjectionType.REDIRECT,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyArg;", MixinInjectionType.MODIFY_ARG,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyArgs;", MixinInjectionType.MODIFY_ARGS,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyConstant;", MixinInjectionType.MODIFY_CONSTANT,
+            "Lorg/spongepowered/asm/mixin/injection/ModifyVariable;", MixinInjectionType.MODIFY_VARIABLE,
+            "Lorg/spongepowered/asm/mixin/Overwrite;", MixinInjectionType.OVERWRITE
+    );
+
+    private final MethodScanner methodScanner = new MethodScanner();
+    private final List<MixinInjection> injections = new ArrayList<>();
+    private AnnotationNode mixinAnnotation = null;
+
+    MixinClassVisitor()
+    {
+        super(Opcodes.ASM9);
+    }
+
+    // Returns null if the class isn't annotated with @Mixin
+    AnnotationNode mixinAnnotation() { return mixinAnnotation; }
+
+    List<MixinInjection> injections() { return injections; }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible)
+    {
+        if (!visible && mixinAnnotation == null && descriptor.equals(MIXIN_DESC))
+        {
+            mixinAnnotation = new AnnotationNode(descriptor);
+            return mixinAnnotation;
+        }
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions)
+    {
+        methodScanner.name = name;
+        methodScanner.desc = descriptor;
+        return methodScanner;
+    }
+
+
+
+    private final class MethodScanner extends MethodVisitor
+    {
+        private String name = null;
+        private String desc = null;
+
+        private MethodScanner()
+        {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible)
+        {
+            MixinInjectionType type = visible ? INJECTION_TYPES.get(descriptor) : null;
+            if (type == null)
+            {
+                return null;
+            }
+
+            // The annotation's values are complete once it's visited to the end
+            String methodName = name;
+            String methodDesc = desc;
+            return new AnnotationNode(Opcodes.ASM9, descriptor)
+            {
+                @Override
+                public void visitEnd()
+                {
+                    MixinTargetDescriptor target = type.parseAnnotationData(methodName, methodDesc, this);
+                    injections.add(new MixinInjection(type, methodName, methodDesc, target));
+                }
+            };
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package xfacthd.depextract.extractor;
 
+import com.google.common.base.Preconditions;
 import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
 import com.moandjiezana.toml.Toml;
 import joptsimple.*;
 import org.apache.commons.lang3.mutable.MutableObject;
@@ -8,34 +10,55 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.objectweb.asm.*;
 import org.objectweb.asm.tree.*;
 import xfacthd.depextract.Main;
-import xfacthd.depextract.data.FileEntry;
 import xfacthd.depextract.data.mixin.*;
 import xfacthd.depextract.html.*;
+import xfacthd.depextract.jfr.ClassParseEvent;
 import xfacthd.depextract.util.*;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.RecursiveTask;
 import java.util.jar.*;
 import java.util.stream.*;
 
-public class MixinExtractor extends DataExtractor
+public class MixinExtractor extends DataExtractor<List<MixinConfig>>
 {
     private static final String MIXIN_RESULT_FILE_NAME = "mixins.html";
+    private static final String CONFLICT_RESULT_FILE_NAME = "mixin_conflicts.html";
     private static final MixinTarget[] EMPTY_ARRAY = new MixinTarget[0];
     private static final MixinInjection[] EMPTY_INJ_ARRAY = new MixinInjection[0];
     private static final Gson GSON = new Gson();
     private static final String CHART_JS_SRC = "https://cdnjs.cloudflare.com/ajax/libs/Chart.js/4.3.2/chart.umd.js";
     private static final String CHART_JS_INTEGRITY = "sha512-KIq/d78rZMlPa/mMe2W/QkRgg+l0/GAAu4mGBacU0OQyPV/7EPoGQChDb269GigVoPQit5CqbNRFbgTjXHHrQg==";
+    // Mixin configs are declared in the manifest or the mod definition
+    private static final EntryMatcher ENTRY_MATCHER = EntryMatcher.of(JarFile.MANIFEST_NAME, JarContext.MODS_TOML_NAME);
+    private static final java.lang.reflect.Type CACHE_TYPE = new TypeToken<List<MixinConfig>>() { }.getType();
 
     private final Map<String, List<MixinConfig>> mixinEntries = new HashMap<>();
     private final List<Pair<String, List<String>>> mixinsPerTarget = new ArrayList<>();
+    private final List<MixinConflict> conflicts = new ArrayList<>();
+    private final List<MissingMixinTarget> missingTargets = new ArrayList<>();
+    private final MemberIndexProvider memberIndex;
+    private final WorkerPool workerPool;
     private OptionSpec<Boolean> extractMixinsOpt = null;
     private OptionSpec<Boolean> filterAccessorsOpt = null;
     private OptionSpec<Boolean> createGraphOpt = null;
+    private OptionSpec<Boolean> findConflictsOpt = null;
+    private OptionSpec<Integer> splitThresholdOpt = null;
     private boolean active = false;
     private boolean filterAccessors = false;
     private boolean createGraph = false;
+    private boolean findConflicts = false;
+    private int conflictInjectionCount = 0;
+    private int splitThreshold = 0;
+    private boolean validated = false;
+
+    public MixinExtractor(MemberIndexProvider memberIndex, WorkerPool workerPool)
+    {
+        this.memberIndex = memberIndex;
+        this.workerPool = workerPool;
+    }
 
     @Override
     public void registerOptions(OptionParser parser)
@@ -54,6 +77,16 @@ public class MixinExtractor extends DataExtractor
                 .withRequiredArg()
                 .ofType(Boolean.class)
                 .defaultsTo(false);
+        findConflictsOpt = parser.accepts("find_mixin_conflicts", "Find Mixins of different mods injecting into the same target methods")
+                .availableIf(extractMixinsOpt)
+                .withRequiredArg()
+                .ofType(Boolean.class)
+                .defaultsTo(false);
+        splitThresholdOpt = parser.accepts("mixin_split_threshold", "Amount of Mixins in a config list above which they are analysed in parallel, 0 disables parallel analysis")
+                .availableIf(extractMixinsOpt)
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(64);
     }
 
     @Override
@@ -62,6 +95,9 @@ public class MixinExtractor extends DataExtractor
         active = options.valueOf(extractMixinsOpt);
         filterAccessors = options.valueOf(filterAccessorsOpt);
         createGraph = options.valueOf(createGraphOpt);
+        findConflicts = options.valueOf(findConflictsOpt);
+        splitThreshold = options.valueOf(splitThresholdOpt);
+        Preconditions.checkArgument(splitThreshold >= 0, "Expected a non-negative amount for argument --mixin_split_threshold, got %s", splitThreshold);
     }
 
     @Override
@@ -71,23 +107,27 @@ public class MixinExtractor extends DataExtractor
     public String name() { return "Mixins"; }
 
     @Override
-    public void acceptFile(String fileName, FileSystem modJar, boolean jij, FileEntry modInfo) throws IOException
+    public EntryMatcher entryMatcher() { return ENTRY_MATCHER; }
+
+    @Override
+    public List<MixinConfig> acceptFile(JarContext modJar, List<String> entries) throws IOException
     {
+        String fileName = modJar.fileName();
         List<String> mixinConfigs = new ArrayList<>();
+        List<MixinConfig> configs = new ArrayList<>();
 
-        collectMixinConfigsFromManifest(mixinConfigs, modJar, fileName);
-        collectMixinConfigsFromModsToml(mixinConfigs, modJar, fileName);
+        collectMixinConfigsFromManifest(mixinConfigs, modJar);
+        collectMixinConfigsFromModsToml(mixinConfigs, modJar);
 
         for (String configName : mixinConfigs)
         {
-            Path configEntry = modJar.getPath(configName);
-            if (!Files.exists(configEntry))
+            if (!modJar.exists(configName))
             {
                 Main.LOG.error("Encountered non-existent Mixin config '%s' in mod JAR '%s'", configName, fileName);
                 continue;
             }
 
-            InputStream mixinStream = Files.newInputStream(configEntry);
+            InputStream mixinStream = modJar.open(configName);
             JsonElement mixinElem = GSON.fromJson(new InputStreamReader(mixinStream), JsonObject.class);
             mixinStream.close();
 
@@ -97,12 +137,48 @@ public class MixinExtractor extends DataExtractor
                 continue;
             }
 
-            MixinConfig config = MixinConfig.fromJson(fileName, configName, modJar, mixinElem.getAsJsonObject());
+            MixinConfig config = MixinConfig.fromJson(
+                    fileName,
+                    configName,
+                    modJar,
+                    mixinElem.getAsJsonObject(),
+                    classes -> analyseMixinClasses(fileName, classes)
+            );
             if (config.mixinCount() > 0)
             {
-                mixinEntries.computeIfAbsent(fileName, $ -> new ArrayList<>()).add(config);
+                configs.add(config);
             }
         }
+
+        return configs.isEmpty() ? null : configs;
+    }
+
+    @Override
+    public void acceptResult(String fileName, List<MixinConfig> result)
+    {
+        mixinEntries.computeIfAbsent(fileName, $ -> new ArrayList<>()).addAll(result);
+    }
+
+    @Override
+    public List<MixinConfig> relocate(List<MixinConfig> result, Path oldSource, Path newSource)
+    {
+        // The Mixins without accessors are added to the config during post-processing
+        return result.stream().map(MixinConfig::copy).toList();
+    }
+
+    @Override
+    public String cacheVersion() { return ""; }
+
+    @Override
+    public JsonElement writeCacheEntry(List<MixinConfig> result)
+    {
+        return ScanCache.GSON.toJsonTree(result, CACHE_TYPE);
+    }
+
+    @Override
+    public List<MixinConfig> readCacheEntry(JsonElement json)
+    {
+        return ScanCache.GSON.fromJson(json, CACHE_TYPE);
     }
 
     @Override
@@ -111,29 +187,23 @@ public class MixinExtractor extends DataExtractor
         Main.LOG.info("Collecting Mixin targets...");
 
         Map<String, List<String>> mixinsPerTargetMap = new HashMap<>();
-        mixinEntries.values().stream().flatMap(List::stream).forEach(config ->
+        MixinConflictIndex conflictIndex = new MixinConflictIndex();
+        MemberIndex index = memberIndex.index();
+        mixinEntries.forEach((fileName, configs) -> configs.forEach(config ->
         {
-            config.mixins().forEach(entry ->
-            {
-                Pair<MixinTarget[], MixinInjection[]> targets = analyseMixinClass(entry);
-                config.resolvedMixins().add(new Mixin(entry.name(), targets.getLeft(), targets.getRight()));
-            });
-
-            config.clientMixins().forEach(entry ->
+            if (filterAccessors)
             {
-                Pair<MixinTarget[], MixinInjection[]> targets = analyseMixinClass(entry);
-                config.resolvedClientMixins().add(new Mixin(entry.name(), targets.getLeft(), targets.getRight()));
-            });
+                config.filterAccessors();
+            }
 
-            config.serverMixins().forEach(entry ->
+            if (index != null)
             {
-                Pair<MixinTarget[], MixinInjection[]> targets = analyseMixinClass(entry);
-                config.resolvedServerMixins().add(new Mixin(entry.name(), targets.getLeft(), targets.getRight()));
-            });
+                config.allMixins().forEach(mixin -> validateMixin(index, fileName, mixin));
+            }
 
-            if (filterAccessors)
+            if (findConflicts)
             {
-                config.filterAccessors();
+                config.allMixins().forEach(mixin -> conflictIndex.add(fileName, mixin));
             }
 
             if (createGraph)
@@ -151,7 +221,7 @@ public class MixinExtractor extends DataExtractor
                             }
                         });
             }
-        });
+        }));
 
         if (createGraph)
         {
@@ -163,39 +233,156 @@ public class MixinExtractor extends DataExtractor
             );
         }
 
+        if (findConflicts)
+        {
+            conflicts.addAll(conflictIndex.findConflicts());
+            conflictInjectionCount = conflictIndex.injectionCount();
+        }
+
+        if (index != null)
+        {
+            validated = true;
+            missingTargets.sort(Comparator.comparing(MissingMixinTarget::fileName, String::compareToIgnoreCase)
+                    .thenComparing(MissingMixinTarget::mixin)
+                    .thenComparing(MissingMixinTarget::target)
+            );
+            Main.LOG.info("Found %d Mixin targets missing from the Minecraft JAR", missingTargets.size());
+        }
+
         Main.LOG.info("Mixin targets collected");
     }
 
-    private void collectMixinConfigsFromManifest(List<String> mixinConfigs, FileSystem modJar, String fileName)
+    // Targets outside the packages of the indexed JARs and selectors matching multiple methods can't be validated and
+    // are skipped, the members of missing target classes are only reported through the class
+    private void validateMixin(MemberIndex index, String fileName, Mixin mixin)
     {
-        Manifest manifest = findManifest(modJar, fileName);
-        if (manifest != null)
+        List<String> targetClasses = new ArrayList<>(mixin.targets().length);
+        for (MixinTarget target : mixin.targets())
         {
-            String mixinCfgName = manifest.getMainAttributes().getValue("MixinConfigs");
-            if (mixinCfgName != null && !mixinCfgName.isEmpty())
+            String className = target.qualifiedName().replace('/', '.');
+            if (!index.covers(className))
             {
-                mixinConfigs.addAll(Arrays.stream(mixinCfgName.split(",")).map(String::trim).toList());
+                continue;
+            }
+            if (!index.hasClass(className))
+            {
+                missingTargets.add(new MissingMixinTarget(fileName, mixin.name(), className, "Class"));
+                continue;
+            }
+            targetClasses.add(className);
+        }
+        if (targetClasses.isEmpty())
+        {
+            return;
+        }
+
+        for (MixinInjection injection : mixin.injections())
+        {
+            switch (injection.type())
+            {
+                case ACCESSOR ->
+                {
+                    String field = injection.target().get("field");
+                    targetClasses.stream()
+                            .filter(owner -> !index.hasField(owner, field, null))
+                            .forEach(owner -> missingTargets.add(new MissingMixinTarget(fileName, mixin.name(), owner + "#" + field, "Field")));
+                }
+                case INVOKER ->
+                {
+                    // Constructor invokers return an instance of the target class and invoke its constructor with the
+                    // handler's parameters regardless of their name
+                    String method = injection.target().get("method");
+                    Type handlerType = Type.getMethodType(injection.methodDesc());
+                    String returnType = handlerType.getReturnType().getClassName();
+                    String ctorDesc = Type.getMethodDescriptor(Type.VOID_TYPE, handlerType.getArgumentTypes());
+                    for (String owner : targetClasses)
+                    {
+                        boolean constructor = owner.equals(returnType);
+                        if (index.hasMethod(owner, method, null) || (constructor && index.hasMethod(owner, "<init>", ctorDesc)))
+                        {
+                            continue;
+                        }
+                        if (constructor)
+                        {
+                            missingTargets.add(new MissingMixinTarget(fileName, mixin.name(), owner + "#<init>" + ctorDesc, "Constructor"));
+                        }
+                        else
+                        {
+                            missingTargets.add(new MissingMixinTarget(fileName, mixin.name(), owner + "#" + method, "Method"));
+                        }
+                    }
+                }
+                case OVERWRITE -> targetClasses.stream()
+                        .filter(owner -> !index.hasMethod(owner, injection.methodName(), injection.methodDesc()))
+                        .forEach(owner -> missingTargets.add(new MissingMixinTarget(
+                                fileName, mixin.name(), owner + "#" + injection.methodName() + injection.methodDesc(), "Method"
+                        )));
+                default ->
+                {
+                    List<String> selectors = injection.target().get("method");
+                    for (String selector : selectors)
+                    {
+                        if (selector.indexOf('*') != -1 || selector.startsWith("/"))
+                        {
+                            continue;
+                        }
+
+                        Descriptor desc = Utils.splitMethodDescriptor(selector, null);
+                        List<String> owners = targetClasses;
+                        if (desc.clazz() != null)
+                        {
+                            String owner = normalizeSelectorOwner(selector, desc.clazz());
+                            if (!index.covers(owner))
+                            {
+                                continue;
+                            }
+                            owners = List.of(owner);
+                        }
+                        owners.stream()
+                                .filter(owner -> !index.hasMethod(owner, desc.method(), desc.descriptor()))
+                                .forEach(owner -> missingTargets.add(new MissingMixinTarget(
+                                        fileName, mixin.name(), owner + "#" + selector, "Method"
+                                )));
+                    }
+                }
             }
         }
     }
 
-    private void collectMixinConfigsFromModsToml(List<String> mixinConfigs, FileSystem modJar, String fileName) throws IOException
+    // Converts the owner of an explicit selector, given as an internal name or as a descriptor like "Lpkg/Owner;", to the
+    // dotted class name used for the Mixin's target classes
+    private static String normalizeSelectorOwner(String selector, String owner)
     {
-        Path tomlEntry = modJar.getPath("META-INF/neoforge.mods.toml");
-        if (!Files.exists(tomlEntry)) return;
-
-        InputStream tomlStream = Files.newInputStream(tomlEntry);
-        Toml toml;
-        try
+        // The ';' terminating the descriptor is dropped from the owner unless the owner is separated by a '.'
+        boolean descriptor = owner.endsWith(";") || selector.startsWith(owner + ";");
+        if (owner.endsWith(";"))
         {
-            toml = new Toml().read(tomlStream);
+            owner = owner.substring(0, owner.length() - 1);
         }
-        catch (Throwable t)
+        if (descriptor && owner.startsWith("L"))
         {
-            Main.LOG.error("Failed to parse mod definition in mod JAR '%s'", fileName, t);
-            return;
+            owner = owner.substring(1);
+        }
+        return owner.replace('/', '.');
+    }
+
+    private static void collectMixinConfigsFromManifest(List<String> mixinConfigs, JarContext modJar)
+    {
+        Manifest manifest = modJar.manifest();
+        if (manifest != null)
+        {
+            String mixinCfgName = manifest.getMainAttributes().getValue("MixinConfigs");
+            if (mixinCfgName != null && !mixinCfgName.isEmpty())
+            {
+                mixinConfigs.addAll(Arrays.stream(mixinCfgName.split(",")).map(String::trim).toList());
+            }
         }
-        tomlStream.close();
+    }
+
+    private static void collectMixinConfigsFromModsToml(List<String> mixinConfigs, JarContext modJar)
+    {
+        Toml toml = modJar.modsToml();
+        if (toml == null) return;
 
         List<Map<String, Object>> mixins = toml.getList("mixins");
         if (mixins == null || mixins.isEmpty()) return;
@@ -207,25 +394,50 @@ public class MixinExtractor extends DataExtractor
         }
     }
 
-    private Pair<MixinTarget[], MixinInjection[]> analyseMixinClass(MixinEntry entry)
+    private List<Mixin> analyseMixinClasses(String fileName, List<MixinConfig.MixinClass> classes)
     {
-        ClassReader reader = new ClassReader(entry.classFile());
-        ClassNode clazz = new ClassNode(Opcodes.ASM9);
-        reader.accept(clazz, 0);
+        // The class files were already read from the JAR, the analysis doesn't touch the JAR and can be spread across
+        // the worker pool
+        if (splitThreshold > 0 && classes.size() > splitThreshold)
+        {
+            return Arrays.asList(workerPool.invoke(new AnalyseTask(fileName, classes, 0, classes.size())));
+        }
 
-        AnnotationNode mixinNode = null;
-        for (AnnotationNode anno : clazz.invisibleAnnotations)
+        List<Mixin> mixins = new ArrayList<>(classes.size());
+        for (MixinConfig.MixinClass mixin : classes)
         {
-            if (anno.desc.equals("Lorg/spongepowered/asm/mixin/Mixin;"))
-            {
-                mixinNode = anno;
-                break;
-            }
+            mixins.add(analyseMixinClass(fileName, mixin));
+        }
+        return mixins;
+    }
+
+    private Mixin analyseMixinClass(String fileName, MixinConfig.MixinClass mixin)
+    {
+        return analyseMixinClass(fileName, mixin.name(), mixin.classPath(), mixin.classFile());
+    }
+
+    private Mixin analyseMixinClass(String fileName, String name, String classPath, byte[] classFile)
+    {
+        if (classFile == null)
+        {
+            return new Mixin(name, EMPTY_ARRAY, EMPTY_INJ_ARRAY);
         }
 
-        MixinTarget[] targets = resolveMixinTargets(entry.name(), mixinNode);
-        MixinInjection[] injections = resolveMixinInjections(clazz.methods);
-        return Pair.of(targets, injections);
+        ClassParseEvent event = new ClassParseEvent();
+        event.begin();
+        // Only the annotations of the class and its methods are of interest, the method bodies are skipped entirely
+        ClassReader reader = new ClassReader(classFile);
+        MixinClassVisitor visitor = new MixinClassVisitor();
+        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+        event.extractor = name();
+        event.fileName = fileName;
+        event.className = classPath;
+        event.size = classFile.length;
+        event.commit();
+
+        MixinTarget[] targets = resolveMixinTargets(name, visitor.mixinAnnotation());
+        MixinInjection[] injections = visitor.injections().isEmpty() ? EMPTY_INJ_ARRAY : visitor.injections().toArray(MixinInjection[]::new);
+        return new Mixin(name, targets, injections);
     }
 
     private MixinTarget[] resolveMixinTargets(String name, AnnotationNode anno)
@@ -269,92 +481,6 @@ public class MixinExtractor extends DataExtractor
         return targets.toArray(MixinTarget[]::new);
     }
 
-    private MixinInjection[] resolveMixinInjections(List<MethodNode> methods)
-    {
-        if (methods == null || methods.isEmpty())
-        {
-            return EMPTY_INJ_ARRAY;
-        }
-
-        List<MixinInjection> injections = new ArrayList<>();
-
-        for (MethodNode mth : methods)
-        {
-            List<AnnotationNode> annos = mth.visibleAnnotations;
-            if (annos == null || annos.isEmpty())
-            {
-                continue;
-            }
-
-            annos.forEach(anno -> resolveInjection(mth, anno, injections));
-        }
-
-        return injections.toArray(MixinInjection[]::new);
-    }
-
-    private void resolveInjection(MethodNode mth, AnnotationNode anno, List<MixinInjection> injections)
-    {
-        if (anno == null)
-        {
-            return;
-        }
-
-        MixinInjection inj = switch (anno.desc)
-        {
-            case "Lorg/spongepowered/asm/mixin/gen/Accessor;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.ACCESSOR.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.ACCESSOR, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/gen/Invoker;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.INVOKER.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.INVOKER, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/injection/Inject;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.INJECT.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.INJECT, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/injection/Redirect;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.REDIRECT.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.REDIRECT, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/injection/ModifyArg;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.MODIFY_ARG.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.MODIFY_ARG, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/injection/ModifyArgs;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.MODIFY_ARGS.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.MODIFY_ARGS, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/injection/ModifyConstant;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.MODIFY_CONSTANT.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.MODIFY_CONSTANT, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/injection/ModifyVariable;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.MODIFY_VARIABLE.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.MODIFY_VARIABLE, mth, target);
-            }
-            case "Lorg/spongepowered/asm/mixin/Overwrite;" ->
-            {
-                MixinTargetDescriptor target = MixinInjectionType.OVERWRITE.parseAnnotationData(mth, anno);
-                yield new MixinInjection(MixinInjectionType.OVERWRITE, mth, target);
-            }
-            default -> null;
-        };
-
-        if (inj != null)
-        {
-            injections.add(inj);
-        }
-    }
-
     @Override
     public void printResults(boolean darkMode, boolean minify, int modCount)
     {
@@ -568,6 +694,48 @@ public class MixinExtractor extends DataExtractor
                             })
                     );
 
+                    if (validated)
+                    {
+                        body.println("");
+
+                        Html.element(body, "h3", "", "Missing targets");
+                        body.print("Found");
+                        Html.span(body, Html.getBoolColor(missingTargets.isEmpty()), Integer.toString(missingTargets.size()));
+                        body.println("Mixin targets which don't exist in the Minecraft JAR.<br>");
+                        if (!missingTargets.isEmpty())
+                        {
+                            Map<String, Long> countPerFile = missingTargets.stream()
+                                    .collect(Collectors.groupingBy(MissingMixinTarget::fileName, Collectors.counting()));
+                            MutableObject<String> lastOwner = new MutableObject<>("");
+                            Html.table(
+                                    body,
+                                    tableAttrib,
+                                    thead -> Html.element(thead, "tr", tableAttrib, row ->
+                                    {
+                                        Html.tableHeader(row, tableAttrib, "Mod file (Missing targets)");
+                                        Html.tableHeader(row, tableAttrib, "Mixin");
+                                        Html.tableHeader(row, tableAttrib, "Target");
+                                        Html.tableHeader(row, tableAttrib, "Missing");
+                                    }),
+                                    tbody -> missingTargets.forEach(target -> Html.tableRow(tbody, tableAttrib, row ->
+                                    {
+                                        if (!target.fileName().equals(lastOwner.getValue()))
+                                        {
+                                            lastOwner.setValue(target.fileName());
+
+                                            long count = countPerFile.get(target.fileName());
+                                            String rowStyle = String.format("%s rowspan=\"%d\"", tableAttrib, count);
+                                            Html.tableCell(row, rowStyle, String.format("%s (%d)", target.fileName(), count));
+                                        }
+
+                                        Html.tableCell(row, tableAttrib, target.mixin());
+                                        Html.tableCell(row, tableAttrib, Html.escape(target.target()));
+                                        Html.tableCell(row, tableAttrib, target.reason());
+                                    }))
+                            );
+                        }
+                    }
+
                     if (createGraph)
                     {
                         body.println("");
@@ -666,6 +834,115 @@ public class MixinExtractor extends DataExtractor
         writer.close();
 
         Main.LOG.info("Mixin display built");
+
+        if (findConflicts)
+        {
+            printConflicts(darkMode, minify, modCount);
+        }
+    }
+
+    private void printConflicts(boolean darkMode, boolean minify, int modCount)
+    {
+        Main.LOG.info("Building Mixin conflict display...");
+
+        PrintWriter writer = Utils.makePrintWriter(CONFLICT_RESULT_FILE_NAME);
+        if (writer == null)
+        {
+            Main.LOG.error("Failed to write result page!");
+            return;
+        }
+
+        Html.html(
+                writer,
+                minify,
+                darkMode ? "style=\"background-color: #0d1117; color: #f0f6fc;\"" : "",
+                head ->
+                {
+                    Html.element(head, "title", "", "Mixin Conflicts");
+
+                    Html.style(head, style ->
+                    {
+                        Css.declareSelector(style, ".mod_table", clazz ->
+                        {
+                            Css.property(clazz, "border", String.format("1px solid %s", darkMode ? "#c9d1d9" : "black"));
+                            Css.property(clazz, "border-collapse", "collapse");
+                            Css.property(clazz, "padding", "4px");
+                            Css.property(clazz, "vertical-align", "top");
+                        });
+                        Css.declareStickyHeader(style, darkMode);
+                    });
+                },
+                body ->
+                {
+                    Html.element(body, "h1", "", "Mixin Conflicts");
+
+                    long hardCount = conflicts.stream().filter(MixinConflict::hard).count();
+                    long modsInvolved = conflicts.stream()
+                            .map(MixinConflict::sites)
+                            .flatMap(List::stream)
+                            .map(MixinInjectionSite::fileName)
+                            .distinct()
+                            .count();
+                    body.println(String.format(
+                            "Found %d hard and %d soft conflicts between %d out of %d mods in %d injections.<br>",
+                            hardCount, conflicts.size() - hardCount, modsInvolved, modCount, conflictInjectionCount
+                    ));
+                    body.println("Hard conflicts involve an Overwrite or Redirect, soft conflicts stack other injectors on the same injection point.");
+                    if (conflicts.isEmpty())
+                    {
+                        return;
+                    }
+
+                    String tableAttrib = "class=\"mod_table\"";
+                    Html.table(
+                            body,
+                            tableAttrib,
+                            thead -> Html.element(thead, "tr", tableAttrib, row ->
+                            {
+                                Html.tableHeader(row, tableAttrib, "Severity");
+                                Html.tableHeader(row, tableAttrib, "Target class");
+                                Html.tableHeader(row, tableAttrib, "Target method");
+                                Html.tableHeader(row, tableAttrib, "Injection point");
+                                Html.tableHeader(row, tableAttrib, "Mod file");
+                                Html.tableHeader(row, tableAttrib, "Mixin");
+                                Html.tableHeader(row, tableAttrib, "Injection");
+                            }),
+                            tbody -> conflicts.forEach(conflict ->
+                            {
+                                List<MixinInjectionSite> sites = conflict.sites();
+                                for (int i = 0; i < sites.size(); i++)
+                                {
+                                    MixinInjectionSite site = sites.get(i);
+                                    boolean first = i == 0;
+                                    Html.tableRow(tbody, tableAttrib, row ->
+                                    {
+                                        if (first)
+                                        {
+                                            String cellStyle = String.format("%s rowspan=\"%d\"", tableAttrib, sites.size());
+                                            String severityStyle = String.format(
+                                                    "%s style=\"color: %s;\"",
+                                                    cellStyle,
+                                                    conflict.hard() ? Html.COLOR_RED : Html.COLOR_ORANGE
+                                            );
+                                            Html.tableCell(row, severityStyle, conflict.hard() ? "Hard" : "Soft");
+                                            Html.tableCell(row, cellStyle, conflict.targetClass());
+                                            Html.tableCell(row, cellStyle, Html.escape(conflict.targetMethod()));
+                                            Html.tableCell(row, cellStyle, Html.escape(conflict.injectionPoint()));
+                                        }
+
+                                        Html.tableCell(row, tableAttrib, site.fileName());
+                                        Html.tableCell(row, tableAttrib, site.mixin());
+                                        Html.tableCell(row, tableAttrib, String.format("%s: %s", site.type(), Html.escape(site.handler())));
+                                    });
+                                }
+                            })
+                    );
+                }
+        );
+
+        writer.close();
+
+        Main.LOG.info("Mixin conflict display built");
     }
 
     private static int popupIdx = 0;
@@ -750,6 +1027,54 @@ public class MixinExtractor extends DataExtractor
                     )
             );
         }
-        return Math.max(config.mixins().size(), Math.max(config.clientMixins().size(), config.serverMixins().size()));
+        return Math.max(config.resolvedMixins().size(), Math.max(config.resolvedClientMixins().size(), config.resolvedServerMixins().size()));
+    }
+
+
+
+    // Analyses a range of Mixin classes, ranges above the split threshold are halved and the halves analysed in
+    // parallel. Each task writes into its own range of the shared result array, which retains the order of the classes
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private final class AnalyseTask extends RecursiveTask<Mixin[]>
+    {
+        private final String fileName;
+        private final List<MixinConfig.MixinClass> classes;
+        private final Mixin[] results;
+        private final int start;
+        private final int end;
+
+        private AnalyseTask(String fileName, List<MixinConfig.MixinClass> classes, int start, int end)
+        {
+            this(fileName, classes, new Mixin[classes.size()], start, end);
+        }
+
+        private AnalyseTask(String fileName, List<MixinConfig.MixinClass> classes, Mixin[] results, int start, int end)
+        {
+            this.fileName = fileName;
+            this.classes = classes;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Mixin[] compute()
+        {
+            if (end - start > splitThreshold)
+            {
+                int mid = (start + end) >>> 1;
+                AnalyseTask first = new AnalyseTask(fileName, classes, results, start, mid);
+                first.fork();
+                new AnalyseTask(fileName, classes, results, mid, end).compute();
+                first.join();
+                return results;
+            }
+
+            for (int i = start; i < end; i++)
+            {
+                results[i] = analyseMixinClass(fileName, classes.get(i));
+            }
+            return results;
+        }
     }
 }
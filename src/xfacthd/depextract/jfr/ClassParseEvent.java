@@ -0,0 +1,23 @@
+package xfacthd.depextract.jfr;
+
+import jdk.jfr.*;
+
+@Name("xfacthd.depextract.ClassParse")
+@Label("Class Parse")
+@Description("A class file from a mod JAR being parsed")
+@Category("ModDepExtract")
+public class ClassParseEvent extends Event
+{
+    @Label("Extractor")
+    public String extractor;
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Size")
+    @DataAmount
+    public int size;
+}
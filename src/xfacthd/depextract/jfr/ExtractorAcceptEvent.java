@@ -0,0 +1,19 @@
+package xfacthd.depextract.jfr;
+
+import jdk.jfr.*;
+
+@Name("xfacthd.depextract.ExtractorAccept")
+@Label("Extractor Accept")
+@Description("An extractor processing a single mod JAR")
+@Category("ModDepExtract")
+public class ExtractorAcceptEvent extends Event
+{
+    @Label("Extractor")
+    public String extractor;
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Matched Entries")
+    public int entries;
+}
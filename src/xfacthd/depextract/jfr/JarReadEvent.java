@@ -0,0 +1,21 @@
+package xfacthd.depextract.jfr;
+
+import jdk.jfr.*;
+
+@Name("xfacthd.depextract.JarRead")
+@Label("Mod JAR Read")
+@Description("A mod JAR being opened, read by all extractors and closed")
+@Category("ModDepExtract")
+public class JarReadEvent extends Event
+{
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Nesting Depth")
+    @Description("0 for JARs in a mods folder, incremented for each level of JiJ")
+    public int depth;
+}
@@ -0,0 +1,13 @@
+package xfacthd.depextract.jfr;
+
+import jdk.jfr.*;
+
+@Name("xfacthd.depextract.ReportWrite")
+@Label("Report Write")
+@Description("An extractor writing its HTML report")
+@Category("ModDepExtract")
+public class ReportWriteEvent extends Event
+{
+    @Label("Extractor")
+    public String extractor;
+}
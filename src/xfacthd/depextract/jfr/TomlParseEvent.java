@@ -0,0 +1,16 @@
+package xfacthd.depextract.jfr;
+
+import jdk.jfr.*;
+
+@Name("xfacthd.depextract.TomlParse")
+@Label("TOML Parse")
+@Description("The mod definition of a mod JAR being parsed")
+@Category("ModDepExtract")
+public class TomlParseEvent extends Event
+{
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Success")
+    public boolean success;
+}
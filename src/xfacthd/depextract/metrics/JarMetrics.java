@@ -0,0 +1,110 @@
+package xfacthd.depextract.metrics;
+
+import com.google.gson.JsonObject;
+
+import java.util.*;
+
+// Measurements of a single top-level mod JAR including its JiJed JARs. Filled by the thread reading the JAR and only
+// read after it is done
+public final class JarMetrics
+{
+    private final String fileName;
+    private final Map<String, Long> extractorNanos = new LinkedHashMap<>();
+    private String thread = "";
+    private boolean cached = false;
+    private long startNanos = 0;
+    private long startAllocated = 0;
+    private long totalNanos = 0;
+    private long openNanos = 0;
+    private long jijMetaNanos = 0;
+    private long bytesRead = 0;
+    private long allocatedBytes = -1;
+    private int entriesRead = 0;
+    private int nestedJars = 0;
+    private int reusedNestedJars = 0;
+
+    JarMetrics(String fileName)
+    {
+        this.fileName = fileName;
+    }
+
+    public void start()
+    {
+        thread = Thread.currentThread().getName();
+        startAllocated = Metrics.currentThreadAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    public void finish()
+    {
+        totalNanos = System.nanoTime() - startNanos;
+        long allocated = Metrics.currentThreadAllocatedBytes();
+        if (startAllocated >= 0 && allocated >= 0)
+        {
+            allocatedBytes = allocated - startAllocated;
+        }
+    }
+
+    public void markCached() { cached = true; }
+
+    public void addOpenTime(long nanos) { openNanos += nanos; }
+
+    public void addJiJMetaTime(long nanos) { jijMetaNanos += nanos; }
+
+    public void addExtractorTime(String extractor, long nanos) { extractorNanos.merge(extractor, nanos, Long::sum); }
+
+    public void addEntryRead() { entriesRead++; }
+
+    public void addEntriesRead(int count) { entriesRead += count; }
+
+    public void addBytesRead(long bytes) { bytesRead += bytes; }
+
+    public void addNestedJar(boolean reused)
+    {
+        nestedJars++;
+        if (reused)
+        {
+            reusedNestedJars++;
+        }
+    }
+
+    public String fileName() { return fileName; }
+
+    public String thread() { return thread; }
+
+    public boolean cached() { return cached; }
+
+    public long totalNanos() { return totalNanos; }
+
+    public long openNanos() { return openNanos; }
+
+    public long jijMetaNanos() { return jijMetaNanos; }
+
+    public long extractorNanos(String extractor) { return extractorNanos.getOrDefault(extractor, 0L); }
+
+    public long bytesRead() { return bytesRead; }
+
+    public long allocatedBytes() { return allocatedBytes; }
+
+    public int entriesRead() { return entriesRead; }
+
+    JsonObject toJson()
+    {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("file", fileName);
+        obj.addProperty("thread", thread);
+        obj.addProperty("cached", cached);
+        obj.addProperty("total_ms", Metrics.toMillis(totalNanos));
+        obj.addProperty("open_ms", Metrics.toMillis(openNanos));
+        obj.addProperty("jij_metadata_ms", Metrics.toMillis(jijMetaNanos));
+        JsonObject extractors = new JsonObject();
+        extractorNanos.forEach((name, nanos) -> extractors.addProperty(name, Metrics.toMillis(nanos)));
+        obj.add("extractors_ms", extractors);
+        obj.addProperty("entries_read", entriesRead);
+        obj.addProperty("bytes_read", bytesRead);
+        obj.addProperty("nested_jars", nestedJars);
+        obj.addProperty("reused_nested_jars", reusedNestedJars);
+        obj.addProperty("allocated_bytes", allocatedBytes);
+        return obj;
+    }
+}
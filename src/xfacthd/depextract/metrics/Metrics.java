@@ -0,0 +1,162 @@
+package xfacthd.depextract.metrics;
+
+import com.google.gson.*;
+import xfacthd.depextract.Main;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Collects the timings of the individual phases and the measurements of each mod JAR, all methods except the ones
+// of the handed out JarMetrics must be called from the main thread
+public final class Metrics
+{
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = findThreadBean();
+
+    private final List<String> extractors;
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final List<JarMetrics> jars = new ArrayList<>();
+
+    public Metrics(List<String> extractors)
+    {
+        this.extractors = extractors;
+    }
+
+    public JarMetrics createJar(String fileName)
+    {
+        JarMetrics jar = new JarMetrics(fileName);
+        jars.add(jar);
+        return jar;
+    }
+
+    public void addPhaseTime(String phase, long nanos)
+    {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    public void logSlowestJars(int count)
+    {
+        List<JarMetrics> slowest = jars.stream()
+                .sorted(Comparator.comparingLong(JarMetrics::totalNanos).reversed())
+                .limit(count)
+                .toList();
+        if (slowest.isEmpty())
+        {
+            return;
+        }
+
+        int nameWidth = slowest.stream().mapToInt(jar -> jar.fileName().length()).max().orElse(0);
+        StringBuilder header = new StringBuilder(String.format("%-" + nameWidth + "s %10s %10s %10s", "JAR", "Total", "Open", "JiJ meta"));
+        extractors.forEach(extractor -> header.append(String.format(" %" + Math.max(extractor.length(), 10) + "s", extractor)));
+        header.append(String.format(" %8s %10s %12s", "Entries", "Read", "Allocated"));
+
+        Main.LOG.info("Slowest %d mod JAR(s), times in ms, sizes in KiB:", slowest.size());
+        Main.LOG.info(header.toString());
+        for (JarMetrics jar : slowest)
+        {
+            StringBuilder line = new StringBuilder(String.format(
+                    "%-" + nameWidth + "s %10.2f %10.2f %10.2f",
+                    jar.fileName(),
+                    toMillis(jar.totalNanos()),
+                    toMillis(jar.openNanos()),
+                    toMillis(jar.jijMetaNanos())
+            ));
+            extractors.forEach(extractor -> line.append(String.format(
+                    " %" + Math.max(extractor.length(), 10) + ".2f", toMillis(jar.extractorNanos(extractor))
+            )));
+            line.append(String.format(
+                    " %8d %10d %12s",
+                    jar.entriesRead(),
+                    jar.bytesRead() / 1024,
+                    jar.allocatedBytes() < 0 ? "n/a" : Long.toString(jar.allocatedBytes() / 1024)
+            ));
+            if (jar.cached())
+            {
+                line.append(" (cached)");
+            }
+            Main.LOG.info(line.toString());
+        }
+    }
+
+    public void write(Path file)
+    {
+        JsonObject root = new JsonObject();
+        root.addProperty("allocations_supported", THREAD_BEAN != null);
+
+        JsonObject phases = new JsonObject();
+        phaseNanos.forEach((phase, nanos) -> phases.addProperty(phase, toMillis(nanos)));
+        root.add("phases_ms", phases);
+
+        JsonObject extractorTotals = new JsonObject();
+        for (String extractor : extractors)
+        {
+            long nanos = jars.stream().mapToLong(jar -> jar.extractorNanos(extractor)).sum();
+            extractorTotals.addProperty(extractor, toMillis(nanos));
+        }
+        root.add("extractors_ms", extractorTotals);
+
+        // Amount of JARs, wall time and allocated bytes per thread
+        Map<String, long[]> threadTotals = new TreeMap<>();
+        for (JarMetrics jar : jars)
+        {
+            long[] totals = threadTotals.computeIfAbsent(jar.thread(), $ -> new long[3]);
+            totals[0]++;
+            totals[1] += jar.totalNanos();
+            totals[2] += Math.max(jar.allocatedBytes(), 0);
+        }
+        JsonObject threads = new JsonObject();
+        threadTotals.forEach((thread, totals) ->
+        {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("jars", totals[0]);
+            obj.addProperty("total_ms", toMillis(totals[1]));
+            obj.addProperty("allocated_bytes", totals[2]);
+            threads.add(thread, obj);
+        });
+        root.add("threads", threads);
+
+        JsonArray jarArray = new JsonArray();
+        jars.forEach(jar -> jarArray.add(jar.toJson()));
+        root.add("jars", jarArray);
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            GSON.toJson(root, writer);
+        }
+        catch (IOException e)
+        {
+            Main.LOG.error("Failed to write metrics to '%s'", file, e);
+        }
+    }
+
+
+
+    static double toMillis(long nanos)
+    {
+        return Math.round(nanos / 1000D) / 1000D;
+    }
+
+    // Returns the amount of bytes allocated by the current thread so far or -1 if the JVM doesn't support measuring it
+    static long currentThreadAllocatedBytes()
+    {
+        return THREAD_BEAN != null ? THREAD_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean findThreadBean()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported())
+        {
+            if (!sunBean.isThreadAllocatedMemoryEnabled())
+            {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return sunBean;
+        }
+        return null;
+    }
+}
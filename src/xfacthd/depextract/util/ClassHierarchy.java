@@ -0,0 +1,284 @@
+package xfacthd.depextract.util;
+
+import xfacthd.depextract.data.classhierarchy.ClassHierarchySegment;
+
+import java.util.*;
+
+// Graph of the supertypes of the classes declared in all JARs of a pack. Class names are interned to int IDs and the
+// edges are stored as start offsets into flat value arrays, so the graph only consists of a few primitive arrays. A
+// class declared in multiple JARs has one declaration per JAR, the subtypes of a class are the union of the edges of
+// all declarations
+public final class ClassHierarchy
+{
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    // The subtypes of class i are subtypes[subtypeStarts[i]] until subtypes[subtypeStarts[i + 1]]
+    private final int[] subtypeStarts;
+    private final int[] subtypes;
+    // The supertypes of declaration i are declSupers[declSuperStarts[i]] until declSupers[declSuperStarts[i + 1]], the
+    // first one being the super class or -1
+    private final int[] declClasses;
+    private final int[] declFiles;
+    private final int[] declSuperStarts;
+    private final int[] declSupers;
+
+    private ClassHierarchy(
+            String[] names,
+            Map<String, Integer> ids,
+            int[] subtypeStarts,
+            int[] subtypes,
+            int[] declClasses,
+            int[] declFiles,
+            int[] declSuperStarts,
+            int[] declSupers
+    )
+    {
+        this.names = names;
+        this.ids = ids;
+        this.subtypeStarts = subtypeStarts;
+        this.subtypes = subtypes;
+        this.declClasses = declClasses;
+        this.declFiles = declFiles;
+        this.declSuperStarts = declSuperStarts;
+        this.declSupers = declSupers;
+    }
+
+    public int classCount() { return names.length; }
+
+    public int declarationCount() { return declClasses.length; }
+
+    // Resolves the subtypes of all given classes at once with a single pass over the graph in topological order,
+    // propagating a bit per target from each class to its subtypes
+    public Resolution resolve(List<String> targets)
+    {
+        int words = Math.max((targets.size() + 63) / 64, 1);
+        long[] reach = new long[names.length * words];
+        int[] targetIds = new int[targets.size()];
+        for (int i = 0; i < targetIds.length; i++)
+        {
+            Integer id = ids.get(targets.get(i));
+            targetIds[i] = id != null ? id : -1;
+            if (id != null)
+            {
+                reach[id * words + (i >>> 6)] |= 1L << i;
+            }
+        }
+
+        int[] pending = new int[names.length];
+        for (int sub : subtypes)
+        {
+            pending[sub]++;
+        }
+        int[] queue = new int[names.length];
+        int tail = 0;
+        for (int id = 0; id < names.length; id++)
+        {
+            if (pending[id] == 0)
+            {
+                queue[tail++] = id;
+            }
+        }
+        for (int head = 0; head < tail; head++)
+        {
+            int id = queue[head];
+            for (int i = subtypeStarts[id]; i < subtypeStarts[id + 1]; i++)
+            {
+                int sub = subtypes[i];
+                for (int word = 0; word < words; word++)
+                {
+                    reach[sub * words + word] |= reach[id * words + word];
+                }
+                if (--pending[sub] == 0)
+                {
+                    queue[tail++] = sub;
+                }
+            }
+        }
+        // Classes which are part of a cycle, which only happens with conflicting declarations, are never reached
+        return new Resolution(targetIds, words, reach, names.length - tail);
+    }
+
+
+
+    public static ClassHierarchy build(List<ClassHierarchySegment> segments)
+    {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+
+        // Translate the segment-local name indices to global IDs and count the declarations and their supertypes
+        int[][] globalNames = new int[segments.size()][];
+        int declCount = 0;
+        int superCount = 0;
+        for (int i = 0; i < segments.size(); i++)
+        {
+            ClassHierarchySegment segment = segments.get(i);
+            int[] segmentIds = new int[segment.names().length];
+            for (int j = 0; j < segmentIds.length; j++)
+            {
+                segmentIds[j] = intern(segment.names()[j], ids, names);
+            }
+            globalNames[i] = segmentIds;
+
+            int[] types = segment.types();
+            for (int pos = 0; pos < types.length; pos += 3 + types[pos + 2])
+            {
+                declCount++;
+                superCount += 1 + types[pos + 2];
+            }
+        }
+
+        int[] declClasses = new int[declCount];
+        int[] declFiles = new int[declCount];
+        int[] declSuperStarts = new int[declCount + 1];
+        int[] declSupers = new int[superCount];
+        int[] subtypeCounts = new int[names.size()];
+        int decl = 0;
+        int sup = 0;
+        for (int i = 0; i < segments.size(); i++)
+        {
+            int[] segmentIds = globalNames[i];
+            int[] types = segments.get(i).types();
+            int pos = 0;
+            while (pos < types.length)
+            {
+                declClasses[decl] = segmentIds[types[pos]];
+                declFiles[decl] = i;
+                declSupers[sup++] = types[pos + 1] != -1 ? segmentIds[types[pos + 1]] : -1;
+                int interfaces = types[pos + 2];
+                for (int j = 0; j < interfaces; j++)
+                {
+                    declSupers[sup++] = segmentIds[types[pos + 3 + j]];
+                }
+                pos += 3 + interfaces;
+                declSuperStarts[++decl] = sup;
+            }
+        }
+        for (int superId : declSupers)
+        {
+            if (superId != -1)
+            {
+                subtypeCounts[superId]++;
+            }
+        }
+
+        int[] subtypeStarts = new int[names.size() + 1];
+        for (int id = 0; id < names.size(); id++)
+        {
+            subtypeStarts[id + 1] = subtypeStarts[id] + subtypeCounts[id];
+        }
+        int[] subtypes = new int[subtypeStarts[names.size()]];
+        int[] fill = Arrays.copyOf(subtypeStarts, names.size());
+        for (int i = 0; i < declCount; i++)
+        {
+            for (int j = declSuperStarts[i]; j < declSuperStarts[i + 1]; j++)
+            {
+                if (declSupers[j] != -1)
+                {
+                    subtypes[fill[declSupers[j]]++] = declClasses[i];
+                }
+            }
+        }
+
+        return new ClassHierarchy(
+                names.toArray(String[]::new),
+                ids,
+                subtypeStarts,
+                subtypes,
+                declClasses,
+                declFiles,
+                declSuperStarts,
+                declSupers
+        );
+    }
+
+    private static int intern(String str, Map<String, Integer> ids, List<String> names)
+    {
+        Integer id = ids.get(str);
+        if (id == null)
+        {
+            id = names.size();
+            ids.put(str, id);
+            names.add(str);
+        }
+        return id;
+    }
+
+
+
+    // The subtypes of a set of target classes
+    public final class Resolution
+    {
+        private final int[] targetIds;
+        private final int words;
+        private final long[] reach;
+        private final int unresolved;
+
+        private Resolution(int[] targetIds, int words, long[] reach, int unresolved)
+        {
+            this.targetIds = targetIds;
+            this.words = words;
+            this.reach = reach;
+            this.unresolved = unresolved;
+        }
+
+        // Amount of classes whose supertypes form a cycle and which were therefore not resolved
+        public int unresolvedCount() { return unresolved; }
+
+        // Returns the declarations inheriting from each target in declaration order, which is the order of the
+        // segments the hierarchy was built from
+        public List<List<Subtype>> subtypes()
+        {
+            List<List<Subtype>> result = new ArrayList<>(targetIds.length);
+            for (int i = 0; i < targetIds.length; i++)
+            {
+                result.add(new ArrayList<>());
+            }
+
+            long[] inherited = new long[words];
+            for (int decl = 0; decl < declClasses.length; decl++)
+            {
+                int superStart = declSuperStarts[decl];
+                int superEnd = declSuperStarts[decl + 1];
+                Arrays.fill(inherited, 0L);
+                for (int i = superStart; i < superEnd; i++)
+                {
+                    if (declSupers[i] != -1)
+                    {
+                        for (int word = 0; word < words; word++)
+                        {
+                            inherited[word] |= reach[declSupers[i] * words + word];
+                        }
+                    }
+                }
+
+                for (int word = 0; word < words; word++)
+                {
+                    long bits = inherited[word];
+                    while (bits != 0)
+                    {
+                        int bit = Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        int target = (word << 6) | bit;
+
+                        List<String> via = new ArrayList<>(1);
+                        boolean direct = false;
+                        for (int i = superStart; i < superEnd; i++)
+                        {
+                            int superId = declSupers[i];
+                            if (superId != -1 && (reach[superId * words + word] & (1L << bit)) != 0)
+                            {
+                                via.add(names[superId]);
+                                direct |= superId == targetIds[target];
+                            }
+                        }
+                        result.get(target).add(new Subtype(declFiles[decl], names[declClasses[decl]], direct, via));
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    // A declaration of a class inheriting from a target, either directly or through the given supertypes
+    public record Subtype(int fileIdx, String className, boolean direct, List<String> via) { }
+}
@@ -0,0 +1,333 @@
+package xfacthd.depextract.util;
+
+import xfacthd.depextract.data.classindex.ClassIndexSegment;
+import xfacthd.depextract.data.classindex.ReferenceKind;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Inverted index from referenced class and member names to the classes referencing them, built from the segments of
+// all JARs of a pack. The index is a single file which is memory-mapped when queried, so a lookup only touches the
+// parts of the file it needs. All strings are stored once in a string table, the keys are sorted by their UTF-8 bytes
+// to allow binary searches and prefix scans directly on the mapped file:
+//   header:     magic, version, string count, file count, key count, reference count
+//   strings:    offsets of each string into the string data followed by the end offset, UTF-8 string data
+//   files:      file name string, source string or -1, size, modification time
+//   keys:       key string, start of the key's references followed by the end of the last key's references
+//   references: file index, referencing class name string, reference kind ID
+public final class ClassIndex
+{
+    private static final int MAGIC = 0x44584349;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+    private static final int FILE_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int REFERENCE_SIZE = 3 * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int fileCount;
+    private final int keyCount;
+    private final int stringOffsetsStart;
+    private final int stringDataStart;
+    private final int filesStart;
+    private final int keysStart;
+    private final int keyReferencesStart;
+    private final int referencesStart;
+
+    private ClassIndex(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION)
+        {
+            throw new IllegalArgumentException("Not a class index file or the index was built by a different version");
+        }
+        this.stringCount = buffer.getInt(2 * Integer.BYTES);
+        this.fileCount = buffer.getInt(3 * Integer.BYTES);
+        this.keyCount = buffer.getInt(4 * Integer.BYTES);
+        this.stringOffsetsStart = HEADER_SIZE;
+        this.stringDataStart = stringOffsetsStart + (stringCount + 1) * Integer.BYTES;
+        this.filesStart = stringDataStart + buffer.getInt(stringOffsetsStart + stringCount * Integer.BYTES);
+        this.keysStart = filesStart + fileCount * FILE_SIZE;
+        this.keyReferencesStart = keysStart + keyCount * Integer.BYTES;
+        this.referencesStart = keyReferencesStart + (keyCount + 1) * Integer.BYTES;
+    }
+
+    public int fileCount() { return fileCount; }
+
+    public IndexedFile file(int idx)
+    {
+        int pos = filesStart + idx * FILE_SIZE;
+        int source = buffer.getInt(pos + Integer.BYTES);
+        return new IndexedFile(
+                string(buffer.getInt(pos)),
+                source != -1 ? string(source) : null,
+                buffer.getLong(pos + 2 * Integer.BYTES),
+                buffer.getLong(pos + 2 * Integer.BYTES + Long.BYTES)
+        );
+    }
+
+    public int keyCount() { return keyCount; }
+
+    public String key(int keyIdx)
+    {
+        return string(keyString(keyIdx));
+    }
+
+    // Returns the index of the given key or -1 if no class references it
+    public int find(String key)
+    {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int idx = lowerBound(bytes);
+        return idx < keyCount && compareKey(idx, bytes, false) == 0 ? idx : -1;
+    }
+
+    // Calls the consumer with the index of every key starting with the given prefix in key order
+    public void forEachKeyWithPrefix(String prefix, IntConsumer consumer)
+    {
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        for (int idx = lowerBound(bytes); idx < keyCount && compareKey(idx, bytes, true) == 0; idx++)
+        {
+            consumer.accept(idx);
+        }
+    }
+
+    // Calls the consumer with every reference to the given key, ordered by file index
+    public void forEachReference(int keyIdx, ReferenceConsumer consumer)
+    {
+        int start = buffer.getInt(keyReferencesStart + keyIdx * Integer.BYTES);
+        int end = buffer.getInt(keyReferencesStart + (keyIdx + 1) * Integer.BYTES);
+        for (int ref = start; ref < end; ref++)
+        {
+            int pos = referencesStart + ref * REFERENCE_SIZE;
+            consumer.accept(
+                    buffer.getInt(pos),
+                    string(buffer.getInt(pos + Integer.BYTES)),
+                    ReferenceKind.byId(buffer.getInt(pos + 2 * Integer.BYTES))
+            );
+        }
+    }
+
+    private int keyString(int keyIdx)
+    {
+        return buffer.getInt(keysStart + keyIdx * Integer.BYTES);
+    }
+
+    private String string(int idx)
+    {
+        int start = buffer.getInt(stringOffsetsStart + idx * Integer.BYTES);
+        int end = buffer.getInt(stringOffsetsStart + (idx + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Returns the index of the first key which is not less than the given bytes
+    private int lowerBound(byte[] bytes)
+    {
+        int low = 0;
+        int high = keyCount;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, bytes, false) < 0)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Compares the key's bytes to the given bytes without decoding the key, if prefix is true only the length of the
+    // given bytes is compared
+    private int compareKey(int keyIdx, byte[] bytes, boolean prefix)
+    {
+        int str = keyString(keyIdx);
+        int start = stringDataStart + buffer.getInt(stringOffsetsStart + str * Integer.BYTES);
+        int length = stringDataStart + buffer.getInt(stringOffsetsStart + (str + 1) * Integer.BYTES) - start;
+        int common = Math.min(length, bytes.length);
+        for (int i = 0; i < common; i++)
+        {
+            int cmp = Integer.compare(buffer.get(start + i) & 0xFF, bytes[i] & 0xFF);
+            if (cmp != 0)
+            {
+                return cmp;
+            }
+        }
+        if (prefix && length >= bytes.length)
+        {
+            return 0;
+        }
+        return Integer.compare(length, bytes.length);
+    }
+
+
+
+    public static ClassIndex open(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return new ClassIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Writes the index of the given segments, the file names, sizes and modification times are those of the JARs the
+    // segments belong to
+    public static void write(
+            Path file, List<String> fileNames, List<ClassIndexSegment> segments, long[] sizes, long[] modified
+    ) throws IOException
+    {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        // Translate the segment-local name indices to global string IDs
+        int[][] globalNames = new int[segments.size()][];
+        long referenceCount = 0;
+        for (int i = 0; i < segments.size(); i++)
+        {
+            ClassIndexSegment segment = segments.get(i);
+            int[] ids = new int[segment.names().length];
+            for (int j = 0; j < ids.length; j++)
+            {
+                ids[j] = intern(segment.names()[j], stringIds, strings);
+            }
+            globalNames[i] = ids;
+            referenceCount += segment.referenceCount();
+        }
+        if (referenceCount > Integer.MAX_VALUE / REFERENCE_SIZE)
+        {
+            throw new IOException("Too many references for a single class index: " + referenceCount);
+        }
+
+        // String IDs are dense, the references per key are therefore counted in an array indexed by the key's ID
+        int[] keyCounts = new int[strings.size()];
+        for (int i = 0; i < segments.size(); i++)
+        {
+            int[] ids = globalNames[i];
+            int[] refs = segments.get(i).references();
+            for (int j = 0; j < refs.length; j += 3)
+            {
+                keyCounts[ids[refs[j]]]++;
+            }
+        }
+
+        int[] fileNameIds = new int[fileNames.size()];
+        int[] sourceIds = new int[fileNames.size()];
+        for (int i = 0; i < fileNames.size(); i++)
+        {
+            fileNameIds[i] = intern(fileNames.get(i), stringIds, strings);
+            String source = segments.get(i).source();
+            sourceIds[i] = source != null ? intern(source, stringIds, strings) : -1;
+        }
+
+        byte[][] encoded = strings.stream().map(str -> str.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+
+        // Sort the keys by their UTF-8 bytes and assign each key its range of references
+        int[] keys = IntStream.range(0, keyCounts.length)
+                .filter(id -> keyCounts[id] > 0)
+                .boxed()
+                .sorted((a, b) -> Arrays.compareUnsigned(encoded[a], encoded[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] keyPositions = new int[keyCounts.length];
+        int[] keyStarts = new int[keys.length + 1];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keyPositions[keys[i]] = i;
+            keyStarts[i + 1] = keyStarts[i] + keyCounts[keys[i]];
+        }
+
+        // References are filled in segment order, which keeps them ordered by file within each key
+        int[] references = new int[(int) referenceCount * 3];
+        int[] fill = Arrays.copyOf(keyStarts, keys.length);
+        for (int i = 0; i < segments.size(); i++)
+        {
+            int[] ids = globalNames[i];
+            int[] refs = segments.get(i).references();
+            for (int j = 0; j < refs.length; j += 3)
+            {
+                int pos = fill[keyPositions[ids[refs[j]]]]++ * 3;
+                references[pos] = i;
+                references[pos + 1] = ids[refs[j + 1]];
+                references[pos + 2] = refs[j + 2];
+            }
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(encoded.length);
+            out.writeInt(fileNames.size());
+            out.writeInt(keys.length);
+            out.writeInt((int) referenceCount);
+
+            int offset = 0;
+            for (byte[] str : encoded)
+            {
+                out.writeInt(offset);
+                offset += str.length;
+            }
+            out.writeInt(offset);
+            for (byte[] str : encoded)
+            {
+                out.write(str);
+            }
+
+            for (int i = 0; i < fileNames.size(); i++)
+            {
+                out.writeInt(fileNameIds[i]);
+                out.writeInt(sourceIds[i]);
+                out.writeLong(sizes[i]);
+                out.writeLong(modified[i]);
+            }
+
+            for (int key : keys)
+            {
+                out.writeInt(key);
+            }
+            for (int start : keyStarts)
+            {
+                out.writeInt(start);
+            }
+            for (int value : references)
+            {
+                out.writeInt(value);
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int intern(String str, Map<String, Integer> stringIds, List<String> strings)
+    {
+        Integer id = stringIds.get(str);
+        if (id == null)
+        {
+            id = strings.size();
+            stringIds.put(str, id);
+            strings.add(str);
+        }
+        return id;
+    }
+
+
+
+    public record IndexedFile(String fileName, @Nullable String source, long size, long modified) { }
+
+    @FunctionalInterface
+    public interface ReferenceConsumer
+    {
+        void accept(int fileIdx, String className, ReferenceKind kind);
+    }
+}
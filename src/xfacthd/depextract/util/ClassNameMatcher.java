@@ -0,0 +1,164 @@
+package xfacthd.depextract.util;
+
+import java.util.*;
+
+// Matches internal class names against a set of patterns in a single pass over the name, independent of the amount of
+// patterns. A pattern is either a class name, a package followed by '*' which matches the classes directly in the
+// package or a package followed by '**' which also matches the classes in its sub-packages. The patterns are stored
+// as a trie whose nodes are flattened into arrays
+public final class ClassNameMatcher
+{
+    private static final byte MATCH_EXACT = 1;
+    private static final byte MATCH_SEGMENT = 2;
+    private static final byte MATCH_ALL = 4;
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final byte[] flags;
+    private final List<String> prefixes;
+
+    private ClassNameMatcher(char[][] edgeChars, int[][] edgeTargets, byte[] flags, List<String> prefixes)
+    {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.flags = flags;
+        this.prefixes = prefixes;
+    }
+
+    public boolean isEmpty() { return prefixes.isEmpty(); }
+
+    // Returns the literal part of each pattern, any name matched by a pattern contains that pattern's literal part
+    public List<String> literalPrefixes() { return prefixes; }
+
+    public boolean matches(String name)
+    {
+        return matches(name, 0, name.length());
+    }
+
+    // Matches the internal name stored in the given region of the string, such as a class name within a descriptor
+    public boolean matches(String str, int start, int end)
+    {
+        int lastSlash = str.lastIndexOf('/', end - 1);
+        int node = 0;
+        for (int i = start; i < end; i++)
+        {
+            byte nodeFlags = flags[node];
+            if ((nodeFlags & MATCH_ALL) != 0 || ((nodeFlags & MATCH_SEGMENT) != 0 && lastSlash < i))
+            {
+                return true;
+            }
+
+            node = child(node, str.charAt(i));
+            if (node == -1)
+            {
+                return false;
+            }
+        }
+        return (flags[node] & MATCH_EXACT) != 0;
+    }
+
+    private int child(int node, char c)
+    {
+        char[] chars = edgeChars[node];
+        int idx = Arrays.binarySearch(chars, c);
+        return idx < 0 ? -1 : edgeTargets[node][idx];
+    }
+
+
+
+    // Creates a matcher from patterns in internal name form, throws if a pattern contains a wildcard anywhere but at
+    // the end of a package
+    public static ClassNameMatcher of(Collection<String> patterns)
+    {
+        Builder builder = new Builder();
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String pattern : patterns)
+        {
+            String literal;
+            byte flag;
+            if (pattern.endsWith("/**"))
+            {
+                literal = pattern.substring(0, pattern.length() - 2);
+                flag = MATCH_ALL;
+            }
+            else if (pattern.endsWith("/*"))
+            {
+                literal = pattern.substring(0, pattern.length() - 1);
+                flag = MATCH_SEGMENT;
+            }
+            else
+            {
+                literal = pattern;
+                flag = MATCH_EXACT;
+            }
+
+            if (literal.isEmpty() || literal.indexOf('*') != -1)
+            {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid class pattern '%s', wildcards are only supported as '<package>/*' or '<package>/**'",
+                        pattern
+                ));
+            }
+            builder.add(literal, flag);
+            prefixes.add(literal);
+        }
+        return builder.build(List.copyOf(prefixes));
+    }
+
+    private static final class Builder
+    {
+        private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        private final List<Byte> flags = new ArrayList<>();
+
+        private Builder()
+        {
+            addNode();
+        }
+
+        private int addNode()
+        {
+            children.add(new TreeMap<>());
+            flags.add((byte) 0);
+            return children.size() - 1;
+        }
+
+        private void add(String literal, byte flag)
+        {
+            int node = 0;
+            for (int i = 0; i < literal.length(); i++)
+            {
+                Integer next = children.get(node).get(literal.charAt(i));
+                if (next == null)
+                {
+                    next = addNode();
+                    children.get(node).put(literal.charAt(i), next);
+                }
+                node = next;
+            }
+            flags.set(node, (byte) (flags.get(node) | flag));
+        }
+
+        private ClassNameMatcher build(List<String> prefixes)
+        {
+            int count = children.size();
+            char[][] edgeChars = new char[count][];
+            int[][] edgeTargets = new int[count][];
+            byte[] nodeFlags = new byte[count];
+            for (int node = 0; node < count; node++)
+            {
+                TreeMap<Character, Integer> nodeChildren = children.get(node);
+                edgeChars[node] = new char[nodeChildren.size()];
+                edgeTargets[node] = new int[nodeChildren.size()];
+                int idx = 0;
+                for (Map.Entry<Character, Integer> entry : nodeChildren.entrySet())
+                {
+                    edgeChars[node][idx] = entry.getKey();
+                    edgeTargets[node][idx] = entry.getValue();
+                    idx++;
+                }
+                nodeFlags[node] = flags.get(node);
+            }
+            return new ClassNameMatcher(edgeChars, edgeTargets, nodeFlags, prefixes);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package xfacthd.depextract.util;
+
+import org.objectweb.asm.ClassReader;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+// Checks whether a class file may reference any of a set of classes by searching the raw UTF8 entries of its constant
+// pool for their internal names. Every class, descriptor and signature reference ends up in such an entry, so a class
+// without a match can't reference any of the classes and doesn't need to be parsed any further
+public final class ConstantPoolFilter
+{
+    private static final int CONSTANT_UTF8 = 1;
+
+    private final byte[][] needles;
+    private final int minLength;
+
+    private ConstantPoolFilter(byte[][] needles)
+    {
+        this.needles = needles;
+        this.minLength = Arrays.stream(needles).mapToInt(needle -> needle.length).min().orElse(0);
+    }
+
+    // Returns true if any UTF8 constant of the given class contains one of the internal names, the reader must have
+    // been created from the given class file
+    public boolean mayReference(ClassReader reader, byte[] classFile)
+    {
+        if (needles.length == 0)
+        {
+            return false;
+        }
+
+        int count = reader.getItemCount();
+        for (int i = 1; i < count; i++)
+        {
+            // The slot following a long or double constant is unused and has no offset
+            int offset = reader.getItem(i);
+            if (offset == 0 || classFile[offset - 1] != CONSTANT_UTF8)
+            {
+                continue;
+            }
+
+            int length = reader.readUnsignedShort(offset);
+            if (length < minLength)
+            {
+                continue;
+            }
+
+            int start = offset + 2;
+            for (byte[] needle : needles)
+            {
+                if (contains(classFile, start, start + length, needle))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(byte[] data, int start, int end, byte[] needle)
+    {
+        byte first = needle[0];
+        int last = end - needle.length;
+        outer:
+        for (int i = start; i <= last; i++)
+        {
+            if (data[i] != first)
+            {
+                continue;
+            }
+            for (int j = 1; j < needle.length; j++)
+            {
+                if (data[i + j] != needle[j])
+                {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Encodes the string in the modified UTF-8 encoding used by the constant pool
+    private static byte[] encodeModifiedUtf8(String value)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length());
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F)
+            {
+                bytes.write(c);
+            }
+            else if (c <= 0x07FF)
+            {
+                bytes.write(0xC0 | ((c >> 6) & 0x1F));
+                bytes.write(0x80 | (c & 0x3F));
+            }
+            else
+            {
+                bytes.write(0xE0 | ((c >> 12) & 0x0F));
+                bytes.write(0x80 | ((c >> 6) & 0x3F));
+                bytes.write(0x80 | (c & 0x3F));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+
+
+    // Creates a filter for the given internal class names
+    public static ConstantPoolFilter of(Collection<String> internalNames)
+    {
+        return new ConstantPoolFilter(internalNames.stream()
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .map(ConstantPoolFilter::encodeModifiedUtf8)
+                .toArray(byte[][]::new)
+        );
+    }
+}
@@ -1,15 +1,14 @@
 package xfacthd.depextract.util;
 
+import com.google.gson.JsonElement;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
-import xfacthd.depextract.Main;
-import xfacthd.depextract.data.FileEntry;
 
 import java.io.IOException;
-import java.nio.file.*;
-import java.util.jar.*;
+import java.nio.file.Path;
+import java.util.List;
 
-public abstract class DataExtractor
+public abstract class DataExtractor<T>
 {
     public abstract void registerOptions(OptionParser parser);
 
@@ -19,28 +18,28 @@ public abstract class DataExtractor
 
     public abstract String name();
 
-    public abstract void acceptFile(String fileName, FileSystem modJar, boolean jij, FileEntry modInfo) throws IOException;
+    // Entries this extractor reads, acceptFile() is only called for JARs containing at least one matching entry
+    public abstract EntryMatcher entryMatcher();
 
-    public abstract void postProcessData();
+    // Receives the matching entries in lexicographic order. May be called concurrently from multiple worker threads,
+    // must not modify the extractor's state
+    public abstract T acceptFile(JarContext modJar, List<String> entries) throws IOException;
 
-    public abstract void printResults(boolean darkMode, boolean minify, int modCount);
+    // Always called on the main thread in mod discovery order with the non-null results of acceptFile()
+    public abstract void acceptResult(String fileName, T result);
 
+    // Adapts a result of a JiJed JAR to an identical JiJed JAR embedded in another mod JAR. Results depending on the
+    // location of the JAR or being modified after they were accepted must be copied
+    public T relocate(T result, Path oldSource, Path newSource) { return result; }
 
+    // Identifies the options influencing the results of acceptFile(), cached results are discarded when it changes
+    public abstract String cacheVersion();
 
-    protected static Manifest findManifest(FileSystem file, String fileName)
-    {
-        Manifest manifest;
+    public abstract JsonElement writeCacheEntry(T result);
 
-        try
-        {
-            manifest = new Manifest(Files.newInputStream(file.getPath(JarFile.MANIFEST_NAME)));
-        }
-        catch (IOException e)
-        {
-            Main.LOG.error("Failed to get Manifest from mod JAR '%s'", fileName);
-            return null;
-        }
+    public abstract T readCacheEntry(JsonElement json);
 
-        return manifest;
-    }
+    public abstract void postProcessData();
+
+    public abstract void printResults(boolean darkMode, boolean minify, int modCount);
 }
@@ -0,0 +1,99 @@
+package xfacthd.depextract.util;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Matches JAR entry names against glob patterns where '*' and '?' don't cross directory boundaries and '**' does.
+// Patterns without wildcards are looked up directly instead of being compiled to a regular expression
+public final class EntryMatcher
+{
+    // Matches no entries but still requests every JAR to be passed to the extractor
+    public static final EntryMatcher EVERY_JAR = new EntryMatcher(Set.of(), List.of(), true);
+
+    private final Set<String> names;
+    private final List<Pattern> globs;
+    private final boolean everyJar;
+
+    private EntryMatcher(Set<String> names, List<Pattern> globs, boolean everyJar)
+    {
+        this.names = names;
+        this.globs = globs;
+        this.everyJar = everyJar;
+    }
+
+    public boolean everyJar() { return everyJar; }
+
+    public boolean matches(String entry)
+    {
+        if (names.contains(entry))
+        {
+            return true;
+        }
+        for (Pattern glob : globs)
+        {
+            if (glob.matcher(entry).matches())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+    public static EntryMatcher of(String... patterns)
+    {
+        Set<String> names = new HashSet<>();
+        List<Pattern> globs = new ArrayList<>();
+        for (String pattern : patterns)
+        {
+            if (pattern.indexOf('*') == -1 && pattern.indexOf('?') == -1)
+            {
+                names.add(pattern);
+            }
+            else
+            {
+                globs.add(compileGlob(pattern));
+            }
+        }
+        return new EntryMatcher(Set.copyOf(names), List.copyOf(globs), false);
+    }
+
+    private static Pattern compileGlob(String glob)
+    {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++)
+        {
+            char c = glob.charAt(i);
+            if (c != '*' && c != '?')
+            {
+                continue;
+            }
+
+            if (i > start)
+            {
+                regex.append(Pattern.quote(glob.substring(start, i)));
+            }
+            if (c == '?')
+            {
+                regex.append("[^/]");
+            }
+            else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*')
+            {
+                regex.append(".*");
+                i++;
+            }
+            else
+            {
+                regex.append("[^/]*");
+            }
+            start = i + 1;
+        }
+        if (start < glob.length())
+        {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,28 @@
+package xfacthd.depextract.util;
+
+import com.google.gson.JsonElement;
+
+import java.nio.file.Path;
+
+public record ExtractorResult<T>(DataExtractor<T> extractor, String fileName, T result)
+{
+    public void commit()
+    {
+        extractor.acceptResult(fileName, result);
+    }
+
+    public ExtractorResult<T> relocate(Path oldSource, Path newSource)
+    {
+        return new ExtractorResult<>(extractor, fileName, extractor.relocate(result, oldSource, newSource));
+    }
+
+    public JsonElement writeCacheEntry()
+    {
+        return extractor.writeCacheEntry(result);
+    }
+
+    public static <T> ExtractorResult<T> readCacheEntry(DataExtractor<T> extractor, String fileName, JsonElement json)
+    {
+        return new ExtractorResult<>(extractor, fileName, extractor.readCacheEntry(json));
+    }
+}
@@ -0,0 +1,183 @@
+package xfacthd.depextract.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.moandjiezana.toml.Toml;
+import xfacthd.depextract.Main;
+import xfacthd.depextract.archive.ModArchive;
+import xfacthd.depextract.data.FileEntry;
+import xfacthd.depextract.jfr.TomlParseEvent;
+import xfacthd.depextract.metrics.JarMetrics;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.List;
+import java.util.jar.*;
+
+// Data of a single mod JAR shared between all extractors, metadata is parsed on first access and then reused.
+// Instances are confined to the thread reading the mod JAR and are therefore not thread-safe
+public final class JarContext
+{
+    public static final String MODS_TOML_NAME = "META-INF/neoforge.mods.toml";
+    public static final String JIJ_META_NAME = "META-INF/jarjar/metadata.json";
+    private static final Gson GSON = new Gson();
+
+    private final String fileName;
+    private final ModArchive archive;
+    private final int depth;
+    private final FileEntry modInfo;
+    private final JarMetrics metrics;
+    private boolean manifestRead = false;
+    private Manifest manifest = null;
+    private boolean modsTomlRead = false;
+    private Toml modsToml = null;
+    private boolean jijMetaRead = false;
+    private JsonObject jijMeta = null;
+    private List<String> entries = null;
+
+    public JarContext(String fileName, ModArchive archive, int depth, FileEntry modInfo, JarMetrics metrics)
+    {
+        this.fileName = fileName;
+        this.archive = archive;
+        this.depth = depth;
+        this.modInfo = modInfo;
+        this.metrics = metrics;
+    }
+
+    public String fileName() { return fileName; }
+
+    public ModArchive archive() { return archive; }
+
+    // Amount of JARs this JAR is nested in
+    public int depth() { return depth; }
+
+    public boolean jij() { return depth > 0; }
+
+    public FileEntry modInfo() { return modInfo; }
+
+    public JarMetrics metrics() { return metrics; }
+
+    public boolean exists(String name) { return archive.exists(name); }
+
+    public InputStream open(String name) throws IOException
+    {
+        metrics.addEntryRead();
+        return new MeteredInputStream(archive.open(name), metrics);
+    }
+
+    public byte[] read(String name) throws IOException
+    {
+        byte[] data = archive.read(name);
+        metrics.addEntryRead();
+        metrics.addBytesRead(data.length);
+        return data;
+    }
+
+    @Nullable
+    public Manifest manifest()
+    {
+        if (!manifestRead)
+        {
+            manifestRead = true;
+            try (InputStream stream = open(JarFile.MANIFEST_NAME))
+            {
+                manifest = new Manifest(stream);
+            }
+            catch (IOException e)
+            {
+                Main.LOG.error("Failed to get Manifest from mod JAR '%s'", fileName);
+            }
+        }
+        return manifest;
+    }
+
+    public boolean hasModsToml() { return exists(MODS_TOML_NAME); }
+
+    // Returns null if the JAR doesn't contain a mod definition or it failed to parse
+    @Nullable
+    public Toml modsToml()
+    {
+        if (!modsTomlRead)
+        {
+            modsTomlRead = true;
+            if (archive.exists(MODS_TOML_NAME))
+            {
+                TomlParseEvent event = new TomlParseEvent();
+                event.begin();
+                try (InputStream tomlStream = open(MODS_TOML_NAME))
+                {
+                    modsToml = new Toml().read(tomlStream);
+                }
+                catch (Throwable t)
+                {
+                    Main.LOG.error("Failed to parse mod definition in mod JAR '%s'", fileName, t);
+                }
+                event.fileName = fileName;
+                event.success = modsToml != null;
+                event.commit();
+            }
+        }
+        return modsToml;
+    }
+
+    // Returns null if the JAR doesn't contain JiJ metadata, failing to read existing metadata is reported to the caller
+    // as the JAR's JiJed JARs would otherwise silently be missing from its results
+    @Nullable
+    public JsonObject jijMetadata() throws IOException
+    {
+        if (!jijMetaRead)
+        {
+            if (archive.exists(JIJ_META_NAME))
+            {
+                try (Reader reader = new InputStreamReader(open(JIJ_META_NAME)))
+                {
+                    jijMeta = GSON.fromJson(reader, JsonObject.class);
+                }
+            }
+            jijMetaRead = true;
+        }
+        return jijMeta;
+    }
+
+    public List<String> entries() throws IOException
+    {
+        if (entries == null)
+        {
+            entries = archive.entries();
+        }
+        return entries;
+    }
+
+    private static final class MeteredInputStream extends FilterInputStream
+    {
+        private final JarMetrics metrics;
+
+        private MeteredInputStream(InputStream stream, JarMetrics metrics)
+        {
+            super(stream);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int value = super.read();
+            if (value != -1)
+            {
+                metrics.addBytesRead(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException
+        {
+            int count = super.read(bytes, off, len);
+            if (count > 0)
+            {
+                metrics.addBytesRead(count);
+            }
+            return count;
+        }
+    }
+}
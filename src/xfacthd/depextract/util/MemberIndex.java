@@ -0,0 +1,266 @@
+package xfacthd.depextract.util;
+
+import org.objectweb.asm.*;
+import xfacthd.depextract.Main;
+import xfacthd.depextract.archive.ModArchive;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Index of the classes, fields and methods declared in a set of JARs, meant to check whether the targets of Mixins and
+// AccessTransformers exist. Every class, member with and without descriptor and package is a key in an
+// open-addressing hash table stored in a single file, which is memory-mapped when queried, so each lookup takes a
+// constant amount of probes regardless of the size of the index:
+//   header: magic, version, key count, table size, key data size
+//   table:  ID + 1 of the key in each slot, 0 marks an empty slot
+//   keys:   hash of each key, flags of each key, offsets of each key into the key data followed by the end offset
+//   data:   UTF-8 key data
+// Classes are keyed by their internal name, fields by "owner.name" and "owner.name:desc", methods by "owner.name" and
+// "owner.name(desc)ret". Packages are keyed by their internal name followed by a slash, such as "net/minecraft/world/",
+// and determine which classes the index is able to judge at all. Only the exact packages of the indexed classes count
+// as libraries like Brigadier share a package prefix with the classes of the Minecraft JAR
+public final class MemberIndex
+{
+    private static final int MAGIC = 0x44584D49;
+    static final int VERSION = 2;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int FLAG_CLASS = 1;
+    private static final int FLAG_PACKAGE = 2;
+    private static final int FLAG_FIELD = 4;
+    private static final int FLAG_METHOD = 8;
+
+    private final ByteBuffer buffer;
+    private final int keyCount;
+    private final int tableMask;
+    private final int tableStart;
+    private final int hashesStart;
+    private final int flagsStart;
+    private final int offsetsStart;
+    private final int dataStart;
+
+    private MemberIndex(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION)
+        {
+            throw new IllegalArgumentException("Not a member index file or the index was built by a different version");
+        }
+        this.keyCount = buffer.getInt(2 * Integer.BYTES);
+        int tableSize = buffer.getInt(3 * Integer.BYTES);
+        this.tableMask = tableSize - 1;
+        this.tableStart = HEADER_SIZE;
+        this.hashesStart = tableStart + tableSize * Integer.BYTES;
+        this.flagsStart = hashesStart + keyCount * Integer.BYTES;
+        this.offsetsStart = flagsStart + keyCount * Integer.BYTES;
+        this.dataStart = offsetsStart + (keyCount + 1) * Integer.BYTES;
+    }
+
+    public int keyCount() { return keyCount; }
+
+    // Returns true if the given class belongs to a package of the indexed JARs, the members of other classes can't be
+    // judged by this index
+    public boolean covers(String className)
+    {
+        String name = toInternalName(className);
+        int split = name.lastIndexOf('/');
+        return split != -1 && (flags(name.substring(0, split + 1)) & FLAG_PACKAGE) != 0;
+    }
+
+    public boolean hasClass(String className)
+    {
+        return (flags(toInternalName(className)) & FLAG_CLASS) != 0;
+    }
+
+    // The descriptor is optional, without one any field with the given name matches
+    public boolean hasField(String owner, String name, @Nullable String desc)
+    {
+        String key = toInternalName(owner) + "." + name + (desc != null ? ":" + desc : "");
+        return (flags(key) & FLAG_FIELD) != 0;
+    }
+
+    // The descriptor is optional, without one any overload of the given name matches
+    public boolean hasMethod(String owner, String name, @Nullable String desc)
+    {
+        String key = toInternalName(owner) + "." + name + (desc != null ? desc : "");
+        return (flags(key) & FLAG_METHOD) != 0;
+    }
+
+    private int flags(String key)
+    {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        for (int slot = hash & tableMask; ; slot = (slot + 1) & tableMask)
+        {
+            int id = buffer.getInt(tableStart + slot * Integer.BYTES) - 1;
+            if (id == -1)
+            {
+                return 0;
+            }
+            if (buffer.getInt(hashesStart + id * Integer.BYTES) == hash && keyEquals(id, bytes))
+            {
+                return buffer.getInt(flagsStart + id * Integer.BYTES);
+            }
+        }
+    }
+
+    private boolean keyEquals(int id, byte[] bytes)
+    {
+        int start = buffer.getInt(offsetsStart + id * Integer.BYTES);
+        int end = buffer.getInt(offsetsStart + (id + 1) * Integer.BYTES);
+        if (end - start != bytes.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++)
+        {
+            if (buffer.get(dataStart + start + i) != bytes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toInternalName(String className)
+    {
+        return className.replace('.', '/');
+    }
+
+    private static int hash(byte[] bytes)
+    {
+        int hash = Arrays.hashCode(bytes);
+        // Spread the high bits as the slot only uses the low bits
+        return hash ^ (hash >>> 16);
+    }
+
+
+
+    public static MemberIndex open(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return new MemberIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Indexes the classes of the given JARs and writes the index to the given file
+    public static void write(Path file, List<Path> jars) throws IOException
+    {
+        Map<String, Integer> keys = new HashMap<>();
+        for (Path jar : jars)
+        {
+            try (ModArchive archive = ModArchive.open(jar, false))
+            {
+                for (String entry : archive.entries())
+                {
+                    if (entry.endsWith(".class") && !entry.startsWith("META-INF/"))
+                    {
+                        collectKeys(archive.read(entry), keys);
+                    }
+                }
+            }
+        }
+
+        int keyCount = keys.size();
+        int tableSize = Integer.highestOneBit(Math.max(keyCount, 1)) * 4;
+        byte[][] encoded = new byte[keyCount][];
+        int[] hashes = new int[keyCount];
+        int[] flags = new int[keyCount];
+        int[] table = new int[tableSize];
+        int id = 0;
+        for (Map.Entry<String, Integer> key : keys.entrySet())
+        {
+            encoded[id] = key.getKey().getBytes(StandardCharsets.UTF_8);
+            hashes[id] = hash(encoded[id]);
+            flags[id] = key.getValue();
+
+            int slot = hashes[id] & (tableSize - 1);
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = id + 1;
+            id++;
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16)))
+        {
+            int dataSize = Arrays.stream(encoded).mapToInt(key -> key.length).sum();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(keyCount);
+            out.writeInt(tableSize);
+            out.writeInt(dataSize);
+
+            for (int slot : table)
+            {
+                out.writeInt(slot);
+            }
+            for (int hash : hashes)
+            {
+                out.writeInt(hash);
+            }
+            for (int flag : flags)
+            {
+                out.writeInt(flag);
+            }
+            int offset = 0;
+            for (byte[] key : encoded)
+            {
+                out.writeInt(offset);
+                offset += key.length;
+            }
+            out.writeInt(offset);
+            for (byte[] key : encoded)
+            {
+                out.write(key);
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Main.LOG.debug("Wrote member index with %d keys to '%s'", keyCount, file);
+    }
+
+    private static void collectKeys(byte[] classFile, Map<String, Integer> keys)
+    {
+        // Only the member declarations are of interest, the method bodies are skipped entirely
+        new ClassReader(classFile).accept(new ClassVisitor(Opcodes.ASM9)
+        {
+            private String owner = null;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces)
+            {
+                owner = name;
+                keys.merge(name, FLAG_CLASS, (a, b) -> a | b);
+
+                int split = name.lastIndexOf('/');
+                if (split != -1)
+                {
+                    keys.merge(name.substring(0, split + 1), FLAG_PACKAGE, (a, b) -> a | b);
+                }
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value)
+            {
+                keys.merge(owner + "." + name, FLAG_FIELD, (a, b) -> a | b);
+                keys.merge(owner + "." + name + ":" + descriptor, FLAG_FIELD, (a, b) -> a | b);
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions)
+            {
+                keys.merge(owner + "." + name, FLAG_METHOD, (a, b) -> a | b);
+                keys.merge(owner + "." + name + descriptor, FLAG_METHOD, (a, b) -> a | b);
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+}
@@ -0,0 +1,152 @@
+package xfacthd.depextract.util;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import joptsimple.*;
+import joptsimple.util.PathConverter;
+import joptsimple.util.PathProperties;
+import xfacthd.depextract.Main;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Provides the member index of the Minecraft and NeoForge JARs given on the command line to the extractors validating
+// their targets. The index is cached next to the scan cache, keyed by the content hash of the indexed JARs, and is
+// only rebuilt when one of the JARs changes
+public final class MemberIndexProvider
+{
+    private static final String INDEX_PREFIX = "members-";
+    private static final String INDEX_SUFFIX = ".bin";
+
+    private OptionSpec<Path> minecraftJarOpt = null;
+    private OptionSpec<Path> neoforgeJarOpt = null;
+    private final List<Path> jars = new ArrayList<>();
+    private MemberIndex index = null;
+
+    public void registerOptions(OptionParser parser)
+    {
+        minecraftJarOpt = parser.accepts("minecraft_jar", "The Minecraft JAR the targets of Mixins and AccessTransformers are validated against")
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter(PathProperties.FILE_EXISTING));
+
+        neoforgeJarOpt = parser.accepts("neoforge_jar", "The NeoForge JAR the targets of Mixins and AccessTransformers are additionally validated against")
+                .availableIf(minecraftJarOpt)
+                .withRequiredArg()
+                .withValuesConvertedBy(new PathConverter(PathProperties.FILE_EXISTING));
+    }
+
+    public void readOptions(OptionSet options)
+    {
+        jars.clear();
+        index = null;
+
+        if (options.has(minecraftJarOpt))
+        {
+            jars.add(options.valueOf(minecraftJarOpt));
+            if (options.has(neoforgeJarOpt))
+            {
+                jars.add(options.valueOf(neoforgeJarOpt));
+            }
+        }
+    }
+
+    public boolean isActive() { return !jars.isEmpty(); }
+
+    // Opens the index, building it first if it isn't cached yet or the cached index can't be opened. Without a cache
+    // directory the index is built into a temporary file
+    public void load(@Nullable Path cacheDir)
+    {
+        if (jars.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            Path indexFile;
+            if (cacheDir != null)
+            {
+                Files.createDirectories(cacheDir);
+                // The index version is part of the name to never pick up an index written by a different version
+                indexFile = cacheDir.resolve(INDEX_PREFIX + MemberIndex.VERSION + "-" + hash(jars) + INDEX_SUFFIX);
+            }
+            else
+            {
+                indexFile = Files.createTempFile(INDEX_PREFIX, INDEX_SUFFIX);
+                indexFile.toFile().deleteOnExit();
+            }
+
+            if (cacheDir == null || !Files.exists(indexFile))
+            {
+                build(indexFile);
+                index = MemberIndex.open(indexFile);
+            }
+            else
+            {
+                try
+                {
+                    index = MemberIndex.open(indexFile);
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    Main.LOG.warning("Failed to open cached member index '%s', rebuilding it", indexFile, e);
+                    build(indexFile);
+                    index = MemberIndex.open(indexFile);
+                }
+            }
+            Main.LOG.info("Loaded member index with %d keys", index.keyCount());
+
+            if (cacheDir != null)
+            {
+                pruneIndexFiles(cacheDir, indexFile);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Main.LOG.error("Failed to build member index, targets will not be validated", e);
+        }
+    }
+
+    private void build(Path indexFile) throws IOException
+    {
+        Main.LOG.info("Building member index of %s...", jars.stream().map(Path::getFileName).toList());
+        MemberIndex.write(indexFile, jars);
+    }
+
+    // Removes the indices of previous versions of the indexed JARs and of the index itself
+    private static void pruneIndexFiles(Path cacheDir, Path indexFile)
+    {
+        try (Stream<Path> files = Files.list(cacheDir))
+        {
+            for (Path file : files.toList())
+            {
+                String name = file.getFileName().toString();
+                if (name.startsWith(INDEX_PREFIX) && name.endsWith(INDEX_SUFFIX) && !file.equals(indexFile))
+                {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            Main.LOG.warning("Failed to remove outdated member indices from '%s'", cacheDir, e);
+        }
+    }
+
+    // Returns null if no JARs were given or the index couldn't be built
+    @Nullable
+    public MemberIndex index() { return index; }
+
+    private static String hash(List<Path> jars) throws IOException
+    {
+        List<String> hashes = new ArrayList<>();
+        for (Path jar : jars)
+        {
+            hashes.add(MoreFiles.asByteSource(jar).hash(Hashing.sha256()).toString());
+        }
+        return Hashing.sha256().hashUnencodedChars(String.join(";", hashes)).toString();
+    }
+}
@@ -0,0 +1,99 @@
+package xfacthd.depextract.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Interns names into a single UTF-8 byte array instead of keeping a string object per name, each distinct name is
+// stored once and identified by an int ID. Lookups go through an open-addressing hash table of the IDs, which keeps
+// the memory footprint at a few bytes per name on top of the name itself even with millions of names
+public final class NameTable
+{
+    private byte[] data = new byte[1 << 16];
+    private int dataSize = 0;
+    // The bytes of name i are data[starts[i]] until data[starts[i + 1]]
+    private int[] starts = new int[1025];
+    private int[] hashes = new int[1024];
+    private int count = 0;
+    // ID + 1 of the name in each slot, 0 marks an empty slot
+    private int[] table = new int[2048];
+
+    public int size() { return count; }
+
+    public String name(int id)
+    {
+        return new String(data, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+    }
+
+    // Returns the ID of the given name, adding it if it isn't known yet
+    public int intern(String name)
+    {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int slot = findSlot(bytes, hash);
+        if (table[slot] != 0)
+        {
+            return table[slot] - 1;
+        }
+
+        int id = count++;
+        if (count == hashes.length)
+        {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            starts = Arrays.copyOf(starts, hashes.length + 1);
+        }
+        if (dataSize + bytes.length > data.length)
+        {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + bytes.length));
+        }
+        System.arraycopy(bytes, 0, data, dataSize, bytes.length);
+        dataSize += bytes.length;
+        starts[id + 1] = dataSize;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+
+        // Keep the load factor at or below one half
+        if (count * 2 > table.length)
+        {
+            rehash();
+        }
+        return id;
+    }
+
+    private int findSlot(byte[] bytes, int hash)
+    {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0)
+        {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && Arrays.equals(data, starts[id], starts[id + 1], bytes, 0, bytes.length))
+            {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash()
+    {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < count; id++)
+        {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static int hash(byte[] bytes)
+    {
+        int hash = Arrays.hashCode(bytes);
+        // Spread the high bits as the slot only uses the low bits
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,303 @@
+package xfacthd.depextract.util;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.*;
+import org.apache.maven.artifact.versioning.*;
+import xfacthd.depextract.Main;
+import xfacthd.depextract.archive.ModArchive;
+import xfacthd.depextract.data.mixin.MixinAtDescriptor;
+import xfacthd.depextract.data.mixin.MixinTargetDescriptor;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Persistent cache of the extractor results of each top-level mod JAR including its JiJed JARs. An entry is reused
+// if the JAR's size and modification time are unchanged or, if only the modification time differs, the content
+// hash derived from the central directory still matches. Entries are discarded when the active extractors or their
+// result-affecting options change
+public final class ScanCache
+{
+    public static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .registerTypeHierarchyAdapter(ArtifactVersion.class, new ArtifactVersionAdapter().nullSafe())
+            .registerTypeAdapter(VersionRange.class, new VersionRangeAdapter().nullSafe())
+            .registerTypeHierarchyAdapter(Path.class, new PathAdapter().nullSafe())
+            .registerTypeAdapter(MixinTargetDescriptor.class, new MixinTargetDescriptorAdapter())
+            .create();
+    // Must be incremented whenever the format of the cache entries or of any extractor result changes
+    private static final int FORMAT_VERSION = 8;
+    private static final String ENTRY_SUFFIX = ".json";
+
+    private final Path directory;
+    private final Map<String, DataExtractor<?>> extractors;
+    private final String version;
+    private final Set<String> usedEntries = ConcurrentHashMap.newKeySet();
+
+    private ScanCache(Path directory, List<DataExtractor<?>> extractors)
+    {
+        this.directory = directory;
+        this.extractors = extractors.stream().collect(Collectors.toMap(DataExtractor::name, extractor -> extractor));
+        this.version = FORMAT_VERSION + ";" + extractors.stream()
+                .map(extractor -> extractor.name() + ":" + extractor.cacheVersion())
+                .collect(Collectors.joining(";"));
+    }
+
+    // Returns the cached results of the given mod JAR or null if there are none or they are outdated, thread-safe
+    @Nullable
+    public List<ExtractorResult<?>> load(Path modFile)
+    {
+        String entryName = entryName(modFile);
+        usedEntries.add(entryName);
+
+        Path entryFile = directory.resolve(entryName);
+        if (!Files.exists(entryFile))
+        {
+            return null;
+        }
+
+        try
+        {
+            JsonObject entry;
+            try (Reader reader = Files.newBufferedReader(entryFile, StandardCharsets.UTF_8))
+            {
+                entry = GSON.fromJson(reader, JsonObject.class);
+            }
+
+            if (entry == null ||
+                !version.equals(entry.get("version").getAsString()) ||
+                !modFile.toAbsolutePath().toString().equals(entry.get("path").getAsString())
+            )
+            {
+                return null;
+            }
+
+            long size = Files.size(modFile);
+            long modified = Files.getLastModifiedTime(modFile).toMillis();
+            if (size != entry.get("size").getAsLong())
+            {
+                return null;
+            }
+            if (modified != entry.get("modified").getAsLong())
+            {
+                if (!hash(modFile).equals(entry.get("hash").getAsString()))
+                {
+                    return null;
+                }
+                // Content is unchanged, update the modification time to skip hashing on the next run
+                entry.addProperty("modified", modified);
+                writeEntry(entryFile, entry);
+            }
+
+            List<ExtractorResult<?>> results = new ArrayList<>();
+            for (JsonElement elem : entry.getAsJsonArray("results"))
+            {
+                JsonObject obj = elem.getAsJsonObject();
+                DataExtractor<?> extractor = extractors.get(obj.get("extractor").getAsString());
+                if (extractor == null)
+                {
+                    return null;
+                }
+                results.add(ExtractorResult.readCacheEntry(extractor, obj.get("file").getAsString(), obj.get("result")));
+            }
+            Main.LOG.debug("Using cached results for mod JAR '%s'", modFile.getFileName());
+            return results;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Main.LOG.warning("Failed to read cached results for mod JAR '%s', rescanning", modFile.getFileName(), e);
+            return null;
+        }
+    }
+
+    // Stores the results of the given mod JAR, thread-safe
+    public void store(Path modFile, List<ExtractorResult<?>> results)
+    {
+        String entryName = entryName(modFile);
+        usedEntries.add(entryName);
+
+        try
+        {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("version", version);
+            entry.addProperty("path", modFile.toAbsolutePath().toString());
+            entry.addProperty("size", Files.size(modFile));
+            entry.addProperty("modified", Files.getLastModifiedTime(modFile).toMillis());
+            entry.addProperty("hash", hash(modFile));
+
+            JsonArray resultArray = new JsonArray();
+            for (ExtractorResult<?> result : results)
+            {
+                JsonObject obj = new JsonObject();
+                obj.addProperty("extractor", result.extractor().name());
+                obj.addProperty("file", result.fileName());
+                obj.add("result", result.writeCacheEntry());
+                resultArray.add(obj);
+            }
+            entry.add("results", resultArray);
+
+            writeEntry(directory.resolve(entryName), entry);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Main.LOG.warning("Failed to cache results for mod JAR '%s'", modFile.getFileName(), e);
+        }
+    }
+
+    // Removes the entries of mod JARs which were not part of this run
+    public void prune()
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            for (Path file : files.toList())
+            {
+                String name = file.getFileName().toString();
+                if (name.endsWith(ENTRY_SUFFIX) && !usedEntries.contains(name))
+                {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            Main.LOG.warning("Failed to remove outdated entries from scan cache", e);
+        }
+    }
+
+    private static void writeEntry(Path entryFile, JsonObject entry) throws IOException
+    {
+        // Write to a temporary file first to never leave a partially written entry behind
+        Path tempFile = entryFile.resolveSibling(entryFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))
+        {
+            GSON.toJson(entry, writer);
+        }
+        Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String entryName(Path modFile)
+    {
+        String path = modFile.toAbsolutePath().toString();
+        return Hashing.murmur3_128().hashString(path, StandardCharsets.UTF_8) + ENTRY_SUFFIX;
+    }
+
+    // Hashes the names, CRCs and sizes of all entries which are read from the central directory without inflating
+    // any entry, avoids reading the whole JAR a second time
+    private static String hash(Path modFile) throws IOException
+    {
+        try (ModArchive archive = ModArchive.open(modFile, false))
+        {
+            Hasher hasher = Hashing.sha256().newHasher();
+            for (String name : archive.entries())
+            {
+                hasher.putString(name, StandardCharsets.UTF_8);
+                hasher.putString(archive.fingerprint(name), StandardCharsets.UTF_8);
+            }
+            return hasher.hash().toString();
+        }
+    }
+
+    public static ScanCache open(Path directory, List<DataExtractor<?>> extractors) throws IOException
+    {
+        Files.createDirectories(directory);
+        return new ScanCache(directory, extractors);
+    }
+
+
+
+    private static final class ArtifactVersionAdapter extends TypeAdapter<ArtifactVersion>
+    {
+        @Override
+        public void write(JsonWriter out, ArtifactVersion value) throws IOException
+        {
+            out.value(value.toString());
+        }
+
+        @Override
+        public ArtifactVersion read(JsonReader in) throws IOException
+        {
+            return new DefaultArtifactVersion(in.nextString());
+        }
+    }
+
+    private static final class VersionRangeAdapter extends TypeAdapter<VersionRange>
+    {
+        @Override
+        public void write(JsonWriter out, VersionRange value) throws IOException
+        {
+            out.value(value.toString());
+        }
+
+        @Override
+        public VersionRange read(JsonReader in) throws IOException
+        {
+            try
+            {
+                return VersionRange.createFromVersionSpec(in.nextString());
+            }
+            catch (InvalidVersionSpecificationException e)
+            {
+                throw new JsonParseException(e);
+            }
+        }
+    }
+
+    private static final class PathAdapter extends TypeAdapter<Path>
+    {
+        @Override
+        public void write(JsonWriter out, Path value) throws IOException
+        {
+            out.value(value.toString());
+        }
+
+        @Override
+        public Path read(JsonReader in) throws IOException
+        {
+            return Path.of(in.nextString());
+        }
+    }
+
+    // The values of a descriptor are typed by their key, restore them from the shape of the stored value
+    private static final class MixinTargetDescriptorAdapter implements JsonSerializer<MixinTargetDescriptor>, JsonDeserializer<MixinTargetDescriptor>
+    {
+        private static final java.lang.reflect.Type AT_LIST_TYPE = new TypeToken<List<MixinAtDescriptor>>() { }.getType();
+        private static final java.lang.reflect.Type STRING_LIST_TYPE = new TypeToken<List<String>>() { }.getType();
+
+        @Override
+        public JsonElement serialize(MixinTargetDescriptor src, java.lang.reflect.Type type, JsonSerializationContext ctx)
+        {
+            return ctx.serialize(src.target());
+        }
+
+        @Override
+        public MixinTargetDescriptor deserialize(JsonElement json, java.lang.reflect.Type type, JsonDeserializationContext ctx)
+        {
+            MixinTargetDescriptor desc = new MixinTargetDescriptor();
+            for (Map.Entry<String, JsonElement> entry : json.getAsJsonObject().entrySet())
+            {
+                JsonElement value = entry.getValue();
+                if (value.isJsonArray())
+                {
+                    desc.put(entry.getKey(), ctx.deserialize(value, entry.getKey().equals("target") ? AT_LIST_TYPE : STRING_LIST_TYPE));
+                }
+                else if (value.getAsJsonPrimitive().isBoolean())
+                {
+                    desc.put(entry.getKey(), value.getAsBoolean());
+                }
+                else
+                {
+                    desc.put(entry.getKey(), value.getAsString());
+                }
+            }
+            return desc;
+        }
+    }
+}
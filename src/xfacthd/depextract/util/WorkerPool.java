@@ -0,0 +1,41 @@
+package xfacthd.depextract.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.*;
+
+// Pool of the worker threads reading the mod JARs, sized from --threads. Extractors splitting the work on a single mod
+// JAR invoke their tasks in the same pool, which runs them on the calling worker and its idle siblings instead of
+// adding threads on top of the thread limit
+public final class WorkerPool
+{
+    private ForkJoinPool pool = null;
+
+    public void start(int threads)
+    {
+        Preconditions.checkState(pool == null, "Worker pool already started");
+        pool = new ForkJoinPool(threads);
+    }
+
+    public ExecutorService executor()
+    {
+        Preconditions.checkState(pool != null, "Worker pool not started");
+        return pool;
+    }
+
+    // Runs the task to completion, forks of the task are spread across the pool
+    public <T> T invoke(ForkJoinTask<T> task)
+    {
+        Preconditions.checkState(pool != null, "Worker pool not started");
+        return pool.invoke(task);
+    }
+
+    public void shutdown()
+    {
+        if (pool != null)
+        {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+}